@@ -0,0 +1,54 @@
+package com.kth25.demo.benchmarks;
+
+
+import com.kth25.demo.model.SudokuUtilities;
+
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * The fixed puzzle corpus all benchmarks run on. Puzzles are generated from a fixed seed with
+ * SudokuUtilities.generateBatch, which gives the same puzzles for the same seed on every machine,
+ * so results of different releases are measured on identical input.
+ */
+public final class BenchmarkCorpus {
+    /** The seed the corpus is generated from; changing it invalidates comparisons with older results */
+    public static final long SEED = 0x5EED_2025L;
+    /** Puzzles per difficulty level */
+    public static final int SIZE = 64;
+
+    private static final int[][][][][] MATRICES = new int[SudokuUtilities.SudokuLevel.values().length][][][][];
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * Gets the corpus puzzles of a level, generating them on first use.
+     *
+     * @param level The difficulty level.
+     * @return SIZE matrices in the format of SudokuUtilities.generateRandomSudokuMatrix. Not to be modified.
+     */
+    public static synchronized int[][][][] matrices(SudokuUtilities.SudokuLevel level) {
+        if (MATRICES[level.ordinal()] == null) {
+            MATRICES[level.ordinal()] = SudokuUtilities.generateBatch(level, SIZE, 1, SEED + level.ordinal());
+        }
+        return MATRICES[level.ordinal()];
+    }
+
+    /**
+     * Gets one layer of the corpus puzzles of a level as flat cell arrays.
+     *
+     * @param level The difficulty level.
+     * @param layer 0 for the puzzles, 1 for their solutions.
+     * @return SIZE arrays of 81 cell values in row-major order.
+     */
+    public static int[][] cells(SudokuUtilities.SudokuLevel level, int layer) {
+        int[][][][] matrices = matrices(level);
+        int[][] cells = new int[matrices.length][GRID_SIZE * GRID_SIZE];
+        for (int i = 0; i < matrices.length; i++) {
+            for (int cell = 0; cell < GRID_SIZE * GRID_SIZE; cell++) {
+                cells[i][cell] = matrices[i][cell / GRID_SIZE][cell % GRID_SIZE][layer];
+            }
+        }
+        return cells;
+    }
+}
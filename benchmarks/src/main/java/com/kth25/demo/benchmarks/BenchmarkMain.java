@@ -0,0 +1,47 @@
+package com.kth25.demo.benchmarks;
+
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs the benchmarks with the GC profiler, so every result also reports the allocation rate
+ * (gc.alloc.rate.norm is the bytes allocated per operation), and writes all results as JSON.
+ * Usage: {@code java -jar target/benchmarks.jar [regex] [results file]}.
+ */
+public final class BenchmarkMain {
+    /** Where results are written unless another file is given */
+    public static final String DEFAULT_RESULTS = "results/jmh-results.json";
+
+    private BenchmarkMain() {
+    }
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args Optional regex selecting benchmarks (default: all) and results file.
+     * @throws RunnerException If a benchmark fails.
+     * @throws IOException If the results directory cannot be created.
+     */
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = args.length > 0 ? args[0] : ".*";
+        Path results = Path.of(args.length > 1 ? args[1] : DEFAULT_RESULTS).toAbsolutePath();
+        Files.createDirectories(results.getParent());
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(results.toString())
+                .build();
+        new Runner(options).run();
+        System.out.println("Results written to " + results);
+    }
+}
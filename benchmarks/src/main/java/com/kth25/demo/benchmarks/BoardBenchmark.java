@@ -0,0 +1,106 @@
+package com.kth25.demo.benchmarks;
+
+
+import com.kth25.demo.model.SudokuBoard;
+import com.kth25.demo.model.SudokuMove;
+import com.kth25.demo.model.SudokuUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * SudokuBoard operations on a game in progress: a MEDIUM corpus puzzle with half of its empty cells
+ * filled in, one of them wrongly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    private int[][][] matrix;
+    private final SudokuBoard template = new SudokuBoard();  // The game in progress, never changed
+    private final SudokuBoard board = new SudokuBoard();
+    private int[] moves;  // Each empty cell of the template filled correctly, then cleared again
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        matrix = BenchmarkCorpus.matrices(SudokuUtilities.SudokuLevel.MEDIUM)[0];
+        template.initializeBoard(matrix);
+        int[] playMoves = new int[GRID_SIZE * GRID_SIZE * 2];
+        int moveCount = 0;
+        boolean fill = true;
+        boolean wrong = true;
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                if (!template.isEditable(row, col)) {
+                    continue;
+                }
+                int correct = template.getCorrectValue(row, col);
+                if (fill) {
+                    template.setValue(row, col, wrong ? correct % GRID_SIZE + 1 : correct);
+                    wrong = false;
+                } else {
+                    playMoves[moveCount++] = SudokuMove.of(row, col, correct);
+                    playMoves[moveCount++] = SudokuMove.of(row, col, 0);
+                }
+                fill = !fill;
+            }
+        }
+        moves = Arrays.copyOf(playMoves, moveCount);
+        board.copyFrom(template);
+    }
+
+    @Benchmark
+    public boolean checkBoard() {
+        return board.checkBoard();
+    }
+
+    @Benchmark
+    public boolean isComplete() {
+        return board.isComplete();
+    }
+
+    @Benchmark
+    public int[][][] getBoardMatrix() {
+        return board.getBoardMatrix();
+    }
+
+    @Benchmark
+    public void copyFrom() {
+        board.copyFrom(template);
+    }
+
+    @Benchmark
+    public int[] provideHint() {
+        board.copyFrom(template);  // Subtract copyFrom for the hint alone
+        return board.provideHint();
+    }
+
+    @Benchmark
+    public int applyMove() {
+        int move = moves[next];
+        next = (next + 1) % moves.length;
+        return board.applyMove(move);
+    }
+
+    @Benchmark
+    public void initializeBoard() {
+        board.initializeBoard(matrix);
+    }
+}
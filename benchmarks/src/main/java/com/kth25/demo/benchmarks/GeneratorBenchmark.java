@@ -0,0 +1,63 @@
+package com.kth25.demo.benchmarks;
+
+
+import com.kth25.demo.model.SudokuGenerator;
+import com.kth25.demo.model.SudokuUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puzzle generation per difficulty level: the random generator used for new games, the same generator
+ * with a fixed seed (the same puzzle sequence in every trial), unrated and rated for the level,
+ * and the predefined puzzles it falls back to.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratorBenchmark {
+    @Param({"EASY", "MEDIUM", "HARD"})
+    public SudokuUtilities.SudokuLevel level;
+
+    private SudokuGenerator seededGenerator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        seededGenerator = new SudokuGenerator(new SplittableRandom(BenchmarkCorpus.SEED));
+    }
+
+    @Benchmark
+    public int[][][] generateRandomSudokuMatrix() {
+        return SudokuUtilities.generateRandomSudokuMatrix(level);
+    }
+
+    @Benchmark
+    public int[][][] generateSeeded() {
+        return seededGenerator.generateMatrix(level);
+    }
+
+    @Benchmark
+    public int[][][] generateSeededRated() {
+        return seededGenerator.generateRatedMatrix(level);
+    }
+
+    @Benchmark
+    public int[][][] generatePredefinedSudokuMatrix() {
+        return SudokuUtilities.generatePredefinedSudokuMatrix(level);
+    }
+}
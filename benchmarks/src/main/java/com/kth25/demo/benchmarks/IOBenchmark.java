@@ -0,0 +1,89 @@
+package com.kth25.demo.benchmarks;
+
+
+import com.kth25.demo.model.SudokuBoard;
+import com.kth25.demo.model.SudokuIO;
+import com.kth25.demo.model.SudokuMoveJournal;
+import com.kth25.demo.model.SudokuUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * Save and load round trips of a game with a 40-move journal: in memory through SudokuIO.encode and decode,
+ * and through a file in the temporary directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IOBenchmark {
+    private static final int JOURNAL_MOVES = 40;
+
+    private final SudokuBoard board = new SudokuBoard();
+    private final SudokuBoard loaded = new SudokuBoard();
+    private final SudokuMoveJournal journal = new SudokuMoveJournal();
+    private final SudokuMoveJournal loadedJournal = new SudokuMoveJournal();
+    private ByteBuffer buffer;
+    private Path directory;
+    private String file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        board.initializeBoard(BenchmarkCorpus.matrices(SudokuUtilities.SudokuLevel.MEDIUM)[0]);
+        for (int cell = 0, moves = 0; cell < GRID_SIZE * GRID_SIZE && moves < JOURNAL_MOVES; cell++) {
+            int row = cell / GRID_SIZE;
+            int col = cell % GRID_SIZE;
+            if (board.isEditable(row, col)) {
+                board.setValue(row, col, board.getCorrectValue(row, col));
+                journal.record(cell, 0, board.getValue(row, col), false);
+                moves++;
+            }
+        }
+        buffer = ByteBuffer.allocate(SudokuIO.SAVE_SIZE + SudokuIO.journalSize(journal));
+        directory = Files.createTempDirectory("sudoku-bench");
+        file = directory.resolve("game.sav").toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(Path.of(file));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public SudokuBoard encodeDecode() throws IOException {
+        buffer.clear();
+        SudokuIO.encode(board, buffer);
+        SudokuIO.encode(journal, buffer);
+        buffer.flip();
+        SudokuIO.decode(buffer, loaded);
+        SudokuIO.decode(buffer, loadedJournal);
+        return loaded;
+    }
+
+    @Benchmark
+    public SudokuBoard saveLoad() throws IOException {
+        SudokuIO.saveSudokuGame(board, journal, file);
+        return SudokuIO.loadSudokuGame(file, loadedJournal);
+    }
+}
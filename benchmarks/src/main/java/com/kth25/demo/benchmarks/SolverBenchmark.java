@@ -0,0 +1,66 @@
+package com.kth25.demo.benchmarks;
+
+
+import com.kth25.demo.model.SudokuUtilities;
+import com.kth25.demo.model.solver.SudokuSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The solving engines on the corpus: solving and uniqueness checks with each SudokuSolver engine.
+ * Every invocation takes the next corpus puzzle, so a measurement covers the whole corpus.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+    @Param({"EASY", "MEDIUM", "HARD"})
+    public SudokuUtilities.SudokuLevel level;
+
+    @Param({"BITMASK", "DANCING_LINKS"})
+    public SudokuSolver.Engine engine;
+
+    private int[][] puzzles;
+    private final int[] cells = new int[SudokuUtilities.GRID_SIZE * SudokuUtilities.GRID_SIZE];
+    private SudokuSolver solver;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        puzzles = BenchmarkCorpus.cells(level, 0);
+        solver = engine.newSolver();
+    }
+
+    private int[] nextPuzzle() {
+        int[] puzzle = puzzles[next];
+        next = (next + 1) % puzzles.length;
+        return puzzle;
+    }
+
+    @Benchmark
+    public int countSolutions() {
+        System.arraycopy(nextPuzzle(), 0, cells, 0, cells.length);
+        return solver.countSolutions(cells, 2);
+    }
+
+    @Benchmark
+    public boolean solve() {
+        System.arraycopy(nextPuzzle(), 0, cells, 0, cells.length);
+        return solver.solve(cells);
+    }
+}
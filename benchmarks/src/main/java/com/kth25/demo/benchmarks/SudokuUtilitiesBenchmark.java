@@ -0,0 +1,49 @@
+package com.kth25.demo.benchmarks;
+
+
+import com.kth25.demo.model.SudokuUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * Parsing of puzzle strings in the format of the predefined puzzles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SudokuUtilitiesBenchmark {
+    private String representation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int[][][] matrix = BenchmarkCorpus.matrices(SudokuUtilities.SudokuLevel.MEDIUM)[0];
+        StringBuilder builder = new StringBuilder(2 * GRID_SIZE * GRID_SIZE);
+        for (int layer = 0; layer < 2; layer++) {
+            for (int cell = 0; cell < GRID_SIZE * GRID_SIZE; cell++) {
+                builder.append((char) ('0' + matrix[cell / GRID_SIZE][cell % GRID_SIZE][layer]));
+            }
+        }
+        representation = builder.toString();
+    }
+
+    @Benchmark
+    public int[][][] convertStringToIntMatrix() {
+        return SudokuUtilities.convertStringToIntMatrix(representation);
+    }
+}
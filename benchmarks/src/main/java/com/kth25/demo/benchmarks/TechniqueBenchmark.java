@@ -0,0 +1,67 @@
+package com.kth25.demo.benchmarks;
+
+
+import com.kth25.demo.model.SudokuBoard;
+import com.kth25.demo.model.SudokuHintEngine;
+import com.kth25.demo.model.SudokuUtilities;
+import com.kth25.demo.model.solver.HumanSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The human-style techniques on the corpus: rating a whole puzzle with the HumanSolver,
+ * and finding the first logical step of a fresh game with the SudokuHintEngine.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TechniqueBenchmark {
+    @Param({"EASY", "MEDIUM", "HARD"})
+    public SudokuUtilities.SudokuLevel level;
+
+    private int[][] puzzles;
+    private int[][][][] matrices;
+    private final HumanSolver humanSolver = new HumanSolver();
+    private final SudokuBoard board = new SudokuBoard();
+    private SudokuHintEngine hintEngine;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        puzzles = BenchmarkCorpus.cells(level, 0);
+        matrices = BenchmarkCorpus.matrices(level);
+        hintEngine = new SudokuHintEngine(board);
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (next + 1) % puzzles.length;
+        return index;
+    }
+
+    @Benchmark
+    public HumanSolver.Rating humanRate() {
+        return humanSolver.rate(puzzles[nextIndex()]);
+    }
+
+    @Benchmark
+    public SudokuHintEngine.Hint nextLogicalStep() {
+        board.initializeBoard(matrices[nextIndex()]);  // A new board makes the engine reload its candidates
+        return hintEngine.nextLogicalStep();
+    }
+}
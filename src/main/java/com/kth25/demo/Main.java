@@ -1,6 +1,7 @@
 package com.kth25.demo;
 
 import com.kth25.demo.model.SudokuBoard;
+import com.kth25.demo.model.SudokuPuzzlePool;
 import com.kth25.demo.model.SudokuUtilities;
 import javafx.application.Application;
 import javafx.scene.Scene;
@@ -15,17 +16,22 @@ import view.MenuBarView;
 import java.io.IOException;
 
 public class Main extends Application {
+    private GameController controller;
 
     @Override
     public void start(Stage stage) throws IOException {
 
         SudokuBoard board = new SudokuBoard();  // Skapa modellen
 
-        // Initiera brädet med slumpmässiga startvärden (här använder vi generateRandomSudokuMatrix)
-        int[][][] initialValues = SudokuUtilities.generateRandomSudokuMatrix(SudokuUtilities.SudokuLevel.EASY);
+        SudokuPuzzlePool puzzlePool = new SudokuPuzzlePool();  // Skapa pusselpoolen
+
+        // Första pusslet tas också ur poolen. Den är tom vid start och ger då direkt en variant av ett
+        // fördefinierat pussel, så inget pussel genereras på FX-tråden
+        int[][][] initialValues = puzzlePool.take(SudokuUtilities.SudokuLevel.EASY);
         board.initializeBoard(initialValues);  // Initiera brädet med värden
 
-        GameController controller = new GameController(board);  // Skapa kontrollern och skicka in modellen
+        controller = new GameController(board, puzzlePool);  // Skapa kontrollern och skicka in modellen (fyller pusselpoolen i bakgrunden)
+        controller.recoverAutosave();  // Återställ det senast autosparade spelet om det finns
         GridView gridView = new GridView(board, controller);    // Skapa GridView och skicka in kontrollern och modellen
         controller.setGridView(gridView);  // Knyt GridView till controllern
         Buttons borderPaneView = new Buttons(controller, gridView);  // Skapa Buttons och skicka GridView
@@ -58,6 +64,11 @@ public class Main extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        controller.shutdown();  // Stoppa bakgrundsgenereringen av pussel och skriv klart autosparningen
+    }
+
     public static void main(String[] args) {
         launch();
     }
@@ -0,0 +1,29 @@
+package com.kth25.demo.metrics;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for generating one puzzle. Recorded by SudokuGenerator, which every
+ * generation path in SudokuUtilities goes through.
+ */
+@Name("com.kth25.demo.Generation")
+@Label("Puzzle Generation")
+@Category("Sudoku")
+@Description("Generating one unique-solution puzzle")
+@StackTrace(false)
+public final class SudokuGenerationEvent extends jdk.jfr.Event {
+    @Label("Level")
+    public String level;
+
+    @Label("Clues")
+    @Description("Givens in the generated puzzle")
+    public int clues;
+
+    @Label("Target Clues")
+    public int targetClues;
+}
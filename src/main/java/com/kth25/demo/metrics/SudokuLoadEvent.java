@@ -0,0 +1,25 @@
+package com.kth25.demo.metrics;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for loading a game with SudokuIO.
+ */
+@Name("com.kth25.demo.Load")
+@Label("Game Load")
+@Category("Sudoku")
+public final class SudokuLoadEvent extends jdk.jfr.Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes Read")
+    @DataAmount
+    public long bytes;
+
+    @Label("Journal Moves")
+    public int moves;
+}
@@ -0,0 +1,428 @@
+package com.kth25.demo.metrics;
+
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process registry of counters and latency histograms for the game's hot paths.
+ * Metrics are off unless the JVM is started with {@code -Dsudoku.metrics=true}. ENABLED is a constant,
+ * so when metrics are off the JIT removes every recording call and instrumentation costs nothing.
+ * When on, recording is a LongAdder add or one atomic increment, and reads never block writers.
+ * Enabled metrics are published over JMX as com.kth25.demo:type=SudokuMetrics and, if
+ * {@code -Dsudoku.metrics.logSeconds=N} is set, logged every N seconds.
+ */
+public final class SudokuMetrics {
+    /** Whether metrics are recorded, from the sudoku.metrics system property */
+    public static final boolean ENABLED = Boolean.getBoolean("sudoku.metrics");
+
+    private static final Map<String, Object> METRICS = new LinkedHashMap<>();  // Counters and histograms by name, filled once
+
+    // Per difficulty level, indexed by SudokuUtilities.SudokuLevel ordinal
+    public static final Histogram[] GENERATION_TIME = {
+            histogram("generation.time.easy"), histogram("generation.time.medium"), histogram("generation.time.hard")};
+    public static final Counter SOLVER_SEARCHES = counter("solver.searches");
+    public static final Counter SOLVER_NODES = counter("solver.nodes");
+    public static final Histogram HINT_TIME = histogram("hint.time");
+    public static final Histogram MOVE_TIME = histogram("move.time");
+    public static final Histogram SAVE_TIME = histogram("save.time");
+    public static final Counter SAVE_BYTES = counter("save.bytes");
+    public static final Histogram LOAD_TIME = histogram("load.time");
+    public static final Counter LOAD_BYTES = counter("load.bytes");
+    public static final Histogram VIEW_REFRESH_TIME = histogram("view.refresh.time");
+
+    private static ScheduledExecutorService logger;
+
+    static {
+        if (ENABLED) {
+            registerMBean();
+            long logSeconds = Long.getLong("sudoku.metrics.logSeconds", 0);
+            if (logSeconds > 0) {
+                startLogging(logSeconds, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private SudokuMetrics() {
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return The current System.nanoTime, or 0 if metrics are off.
+     */
+    public static long startTimer() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Gets all metrics by name, in registration order.
+     *
+     * @return An unmodifiable map of Counter and Histogram instances.
+     */
+    public static Map<String, Object> getMetrics() {
+        return Collections.unmodifiableMap(METRICS);
+    }
+
+    /**
+     * Describes every metric on one line each: counters with their value, histograms with
+     * count, mean, median, 99th percentile and maximum in microseconds.
+     *
+     * @return The text.
+     */
+    public static String dump() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Object> entry : METRICS.entrySet()) {
+            text.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Logs dump() at a fixed rate on a daemon thread, through the System.Logger named after this class.
+     * Does nothing if logging is already running.
+     *
+     * @param period The time between dumps.
+     * @param unit   The unit of period.
+     */
+    public static synchronized void startLogging(long period, TimeUnit unit) {
+        if (logger != null) {
+            return;
+        }
+        System.Logger log = System.getLogger(SudokuMetrics.class.getName());
+        logger = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "sudoku-metrics-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.scheduleAtFixedRate(() -> log.log(System.Logger.Level.INFO, "Sudoku metrics\n" + dump()),
+                period, period, unit);
+    }
+
+    /**
+     * Publishes the metrics over JMX. Every counter is an attribute named after it; every histogram has
+     * attributes name.count, name.mean, name.p50, name.p99 and name.max (times in nanoseconds).
+     * The reset operation resets all metrics. Does nothing if already registered.
+     */
+    public static synchronized void registerMBean() {
+        try {
+            ObjectName name = new ObjectName("com.kth25.demo:type=SudokuMetrics");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), name);
+            }
+        } catch (JMException e) {
+            System.err.println("Sudoku metrics not published over JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Resets every counter and histogram.
+     */
+    public static void reset() {
+        for (Object metric : METRICS.values()) {
+            if (metric instanceof Counter) {
+                ((Counter) metric).reset();
+            } else {
+                ((Histogram) metric).reset();
+            }
+        }
+    }
+
+    private static Counter counter(String name) {
+        Counter counter = new Counter();
+        METRICS.put(name, counter);
+        return counter;
+    }
+
+    private static Histogram histogram(String name) {
+        Histogram histogram = new Histogram();
+        METRICS.put(name, histogram);
+        return histogram;
+    }
+
+    /**
+     * A monotonically increasing count, striped over a LongAdder.
+     */
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        private Counter() {
+        }
+
+        /**
+         * Adds one to the counter.
+         */
+        public void increment() {
+            if (ENABLED) {
+                value.increment();
+            }
+        }
+
+        /**
+         * Adds to the counter.
+         *
+         * @param amount The amount to add.
+         */
+        public void add(long amount) {
+            if (ENABLED) {
+                value.add(amount);
+            }
+        }
+
+        /**
+         * Gets the current count.
+         *
+         * @return The sum of everything added since the last reset.
+         */
+        public long get() {
+            return value.sum();
+        }
+
+        void reset() {
+            value.reset();
+        }
+
+        @Override
+        public String toString() {
+            return Long.toString(get());
+        }
+    }
+
+    /**
+     * A latency histogram in the style of HdrHistogram: buckets grow logarithmically, and each power of two
+     * is split into 8 linear sub-buckets, so any recorded value is reported within 12.5% of its true value.
+     * Values from 0 to about 18 minutes in nanoseconds, below 2^MAX_BIT, fit in 2^SUB_BITS buckets of one value
+     * each plus 8 for each of the MAX_BIT - SUB_BITS powers of two above, 16 + 36 * 8 = 304 buckets in all;
+     * larger values are clamped.
+     * Recording is one atomic increment on the bucket plus two LongAdder adds.
+     */
+    public static final class Histogram {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_COUNT = 1 << SUB_BITS;        // Values below this get a bucket each
+        private static final int HALF_SUB_COUNT = SUB_COUNT / 2;   // Sub-buckets per power of two above that
+        private static final int MAX_BIT = 40;                     // Values are clamped below 2^40
+        private static final long MAX_VALUE = (1L << MAX_BIT) - 1;
+        private static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) + 1;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        private Histogram() {
+        }
+
+        /**
+         * Records the time since a timer was started.
+         *
+         * @param start The value returned by SudokuMetrics.startTimer.
+         */
+        public void recordSince(long start) {
+            if (ENABLED) {
+                record(System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Records a value.
+         *
+         * @param value The value, usually nanoseconds. Negative values count as 0.
+         */
+        public void record(long value) {
+            if (!ENABLED) {
+                return;
+            }
+            long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+            buckets.getAndIncrement(bucketIndex(clamped));
+            count.increment();
+            sum.add(clamped);
+            if (clamped > max.get()) {
+                max.accumulateAndGet(clamped, Math::max);
+            }
+        }
+
+        /**
+         * Gets the number of recorded values.
+         *
+         * @return The count since the last reset.
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Gets the mean of the recorded values.
+         *
+         * @return The mean, or 0 if nothing was recorded.
+         */
+        public long getMean() {
+            long n = count.sum();
+            return n == 0 ? 0 : sum.sum() / n;
+        }
+
+        /**
+         * Gets the largest recorded value.
+         *
+         * @return The maximum, exact.
+         */
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * Gets a percentile of the recorded values. Concurrent recording may make the result
+         * lag slightly, but never blocks.
+         *
+         * @param percentile The percentile, between 0 and 100.
+         * @return The upper bound of the bucket holding the percentile, at most getMax(); 0 if nothing was recorded.
+         * @throws IllegalArgumentException If percentile is out of range.
+         */
+        public long getPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) throw new IllegalArgumentException("percentile " + percentile);
+            long total = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                total += buckets.get(i);
+            }
+            long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), getMax());
+                }
+            }
+            return 0;
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            sum.reset();
+            max.set(0);
+        }
+
+        /**
+         * Gets the bucket of a value: values below 16 have their own bucket, larger values keep their
+         * 4 highest bits.
+         */
+        static int bucketIndex(long value) {
+            if (value < SUB_COUNT) {
+                return (int) value;
+            }
+            int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BITS;  // At least 1
+            return SUB_COUNT + (shift - 1) * HALF_SUB_COUNT + (int) (value >>> shift) - HALF_SUB_COUNT;
+        }
+
+        static long bucketUpperBound(int index) {
+            if (index < SUB_COUNT) {
+                return index;
+            }
+            int shift = (index - SUB_COUNT) / HALF_SUB_COUNT + 1;
+            long top = (index - SUB_COUNT) % HALF_SUB_COUNT + HALF_SUB_COUNT;
+            return ((top + 1) << shift) - 1;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + getCount() + " mean=" + getMean() / 1000.0 + "us p50=" + getPercentile(50) / 1000.0
+                    + "us p99=" + getPercentile(99) / 1000.0 + "us max=" + getMax() / 1000.0 + "us";
+        }
+    }
+
+    /**
+     * Exposes the registry as one MBean whose attributes are computed when read.
+     */
+    private static final class MetricsMBean implements DynamicMBean {
+        private static final String[] HISTOGRAM_FIELDS = {"count", "mean", "p50", "p99", "max"};
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Object metric = METRICS.get(attribute);
+            if (metric instanceof Counter) {
+                return ((Counter) metric).get();
+            }
+            int dot = attribute.lastIndexOf('.');
+            metric = dot < 0 ? null : METRICS.get(attribute.substring(0, dot));
+            if (!(metric instanceof Histogram)) throw new AttributeNotFoundException(attribute);
+            Histogram histogram = (Histogram) metric;
+            switch (attribute.substring(dot + 1)) {
+                case "count": return histogram.getCount();
+                case "mean": return histogram.getMean();
+                case "p50": return histogram.getPercentile(50);
+                case "p99": return histogram.getPercentile(99);
+                case "max": return histogram.getMax();
+                default: throw new AttributeNotFoundException(attribute);
+            }
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                try {
+                    list.add(new Attribute(attribute, getAttribute(attribute)));
+                } catch (AttributeNotFoundException e) {
+                    // Unknown attributes are left out, as the DynamicMBean contract allows
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("metrics are read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            if (!actionName.equals("reset")) throw new UnsupportedOperationException(actionName);
+            reset();
+            return null;
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (Map.Entry<String, Object> entry : METRICS.entrySet()) {
+                if (entry.getValue() instanceof Counter) {
+                    attributes.add(new MBeanAttributeInfo(entry.getKey(), "long", entry.getKey(), true, false, false));
+                } else {
+                    for (String field : HISTOGRAM_FIELDS) {
+                        String name = entry.getKey() + "." + field;
+                        attributes.add(new MBeanAttributeInfo(name, "long", name, true, false, false));
+                    }
+                }
+            }
+            MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Resets all metrics", null, "void",
+                    MBeanOperationInfo.ACTION);
+            return new MBeanInfo(SudokuMetrics.class.getName(), "Sudoku game metrics",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[]{reset}, null);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.kth25.demo.metrics;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for saving a game with SudokuIO.
+ */
+@Name("com.kth25.demo.Save")
+@Label("Game Save")
+@Category("Sudoku")
+public final class SudokuSaveEvent extends jdk.jfr.Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes Written")
+    @DataAmount
+    public long bytes;
+
+    @Label("Journal Moves")
+    public int moves;
+}
@@ -0,0 +1,38 @@
+package com.kth25.demo.metrics;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for one solver search. Generation runs hundreds of short searches per puzzle,
+ * so by default only searches taking at least a millisecond are recorded; set the threshold to 0 ms
+ * in the recording settings to see them all.
+ */
+@Name("com.kth25.demo.SolverSearch")
+@Label("Solver Search")
+@Category("Sudoku")
+@Description("A solve or solution count by one of the solving engines")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class SudokuSolverEvent extends jdk.jfr.Event {
+    @Label("Engine")
+    public String engine;
+
+    @Label("Givens")
+    public int givens;
+
+    @Label("Solution Limit")
+    public int limit;
+
+    @Label("Solutions Found")
+    public int solutions;
+
+    @Label("Nodes")
+    @Description("Search nodes visited")
+    public long nodes;
+}
@@ -0,0 +1,24 @@
+package com.kth25.demo.metrics;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for the work a GameController handler does on the JavaFX application thread.
+ * A long event here is a frame the player saw stutter.
+ */
+@Name("com.kth25.demo.UiAction")
+@Label("UI Action")
+@Category({"Sudoku", "UI"})
+@Description("A game action handled on the JavaFX application thread")
+public final class SudokuUiActionEvent extends jdk.jfr.Event {
+    @Label("Action")
+    public String action;
+
+    @Label("Filled Cells")
+    @Description("Filled cells on the board after the action")
+    public int filled;
+}
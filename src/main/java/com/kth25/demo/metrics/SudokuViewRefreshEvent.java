@@ -0,0 +1,28 @@
+package com.kth25.demo.metrics;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one GridView repaint pass on the JavaFX application thread.
+ */
+@Name("com.kth25.demo.ViewRefresh")
+@Label("View Refresh")
+@Category({"Sudoku", "UI"})
+@StackTrace(false)
+public final class SudokuViewRefreshEvent extends jdk.jfr.Event {
+    @Label("Full Pass")
+    @Description("Whether every tile was checked, rather than the units of one changed cell")
+    public boolean full;
+
+    @Label("Tiles Checked")
+    public int tilesChecked;
+
+    @Label("Cells Repainted")
+    @Description("Tiles whose text or style actually changed")
+    public int cellsRepainted;
+}
@@ -0,0 +1,354 @@
+package com.kth25.demo.model;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Crash-safe autosave of the current game as a snapshot plus a write-ahead log of the moves made since.
+ * The snapshot holds a generation number followed by a save in the SudokuIO format (board and journal).
+ * The log starts with the generation of the snapshot it belongs to, followed by one 4-byte record per
+ * move, undo or redo. Every compactInterval records the game is written as a new snapshot and the log
+ * is started over, so recovery never replays more than compactInterval records.
+ * All file work happens on a background writer thread: the record methods only put a few bytes into a
+ * queue and never block on I/O. The writer takes everything queued so far, writes it and forces it to
+ * disk with a single fsync, so a burst of moves costs one fsync (group commit).
+ * A snapshot is replaced through an atomic rename, and records that were torn by a crash are detected by
+ * their check byte, so recovery always finds the last consistent state.
+ */
+public class SudokuAutosave implements AutoCloseable {
+    /** Records between two snapshots by default */
+    public static final int DEFAULT_COMPACT_INTERVAL = 256;
+    static final int LOG_MAGIC = 0x53444B57;  // "SDKW"
+    static final short LOG_VERSION = 1;
+    private static final int LOG_HEADER_SIZE = Integer.BYTES + Short.BYTES + Long.BYTES;
+    private static final int RECORD_SIZE = Integer.BYTES;
+    private static final int TYPE_MOVE = 1;  // A move recorded in the journal, carrying the packed move
+    private static final int TYPE_UNDO = 2;
+    private static final int TYPE_REDO = 3;
+    private static final int CHECK_SEED = 0x5A;
+
+    private final Path snapshotPath;
+    private final Path snapshotTempPath;
+    private final FileChannel log;
+    private final int compactInterval;
+    private final Thread writer;
+    private long generation = ThreadLocalRandom.current().nextLong();  // Only equality between files matters
+    private int recordsSinceSnapshot;  // Producer side count, triggers compaction
+
+    // Queue shared with the writer thread, guarded by this
+    private int[] pendingRecords = new int[1024];
+    private int pendingCount;
+    private byte[] pendingSnapshot;  // A requested snapshot; records queued before it are covered by it
+    private boolean closing;
+    private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(RECORD_SIZE * 1024);  // Used by the writer only
+
+    /**
+     * Opens the autosave files in a directory, creating the directory if needed, and starts the writer.
+     *
+     * @param directory       The directory holding the snapshot and the log.
+     * @param compactInterval The number of records after which a new snapshot is written.
+     * @throws IOException If the directory or the log cannot be opened.
+     * @throws IllegalArgumentException If compactInterval is not positive.
+     */
+    public SudokuAutosave(Path directory, int compactInterval) throws IOException {
+        if (compactInterval <= 0) throw new IllegalArgumentException("compactInterval " + compactInterval);
+        Files.createDirectories(directory);
+        this.snapshotPath = directory.resolve("autosave.snapshot");
+        this.snapshotTempPath = directory.resolve("autosave.snapshot.tmp");
+        this.log = FileChannel.open(directory.resolve("autosave.log"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.compactInterval = compactInterval;
+        this.writer = Thread.ofVirtual().name("sudoku-autosave").start(this::runWriter);
+    }
+
+    /**
+     * Opens the autosave in the default directory, .sudoku in the user's home directory.
+     *
+     * @return The opened autosave.
+     * @throws IOException If the files cannot be opened.
+     */
+    public static SudokuAutosave openDefault() throws IOException {
+        return new SudokuAutosave(Path.of(System.getProperty("user.home"), ".sudoku"), DEFAULT_COMPACT_INTERVAL);
+    }
+
+    /**
+     * Restores the last autosaved game: loads the snapshot and replays the log records that belong to it.
+     * A torn record at the end of the log is cut off. Must be called before anything is recorded.
+     *
+     * @param board   The board that receives the recovered game.
+     * @param journal The journal that receives the recovered moves.
+     * @return True if a game was recovered, false if there is no usable snapshot (board and journal are then unchanged).
+     */
+    public boolean recover(SudokuBoard board, SudokuMoveJournal journal) {
+        try {
+            if (!Files.exists(snapshotPath)) {
+                return false;
+            }
+            ByteBuffer snapshot = ByteBuffer.wrap(Files.readAllBytes(snapshotPath));
+            long snapshotGeneration = snapshot.getLong();
+            SudokuBoard recovered = new SudokuBoard();
+            SudokuIO.decode(snapshot, recovered);
+            SudokuIO.decode(snapshot, journal, recovered);  // Only touches the journal if it is valid for the board
+            board.copyFrom(recovered);
+            generation = snapshotGeneration;
+
+            long validEnd = replayLog(board, journal);
+            if (validEnd < 0) {
+                resetLog();  // The log belongs to another snapshot
+            } else {
+                log.truncate(validEnd);
+                log.position(validEnd);
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Could not recover the autosave: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Queues a snapshot of the game, replacing the log. Used when a game starts or is loaded.
+     *
+     * @param board   The board to save.
+     * @param journal The moves made on the board.
+     */
+    public void snapshot(SudokuBoard board, SudokuMoveJournal journal) {
+        ByteBuffer buffer = ByteBuffer.allocate(SudokuIO.SAVE_SIZE + SudokuIO.journalSize(journal));
+        SudokuIO.encode(board, buffer);
+        SudokuIO.encode(journal, buffer);
+        recordsSinceSnapshot = 0;
+        synchronized (this) {
+            pendingSnapshot = buffer.array();
+            pendingCount = 0;  // Covered by the snapshot
+            notifyAll();
+        }
+    }
+
+    /**
+     * Queues the move the journal has just recorded.
+     *
+     * @param board   The board the move was made on.
+     * @param journal The journal whose last move is logged.
+     */
+    public void recordMove(SudokuBoard board, SudokuMoveJournal journal) {
+        append(TYPE_MOVE, journal.getMove(journal.getPosition() - 1), board, journal);
+    }
+
+    /**
+     * Queues the last moves the journal has recorded, such as the linked moves of one clear.
+     * Compaction waits until all of them are counted, so a snapshot never pairs the board
+     * with a journal holding moves the board does not show yet.
+     *
+     * @param board   The board the moves were made on, with all of them applied.
+     * @param journal The journal whose last count moves are logged.
+     * @param count   The number of moves to log.
+     * @throws IllegalArgumentException If count is not positive or exceeds the journal position.
+     */
+    public void recordMoves(SudokuBoard board, SudokuMoveJournal journal, int count) {
+        if (count <= 0 || count > journal.getPosition()) throw new IllegalArgumentException("count " + count);
+        recordsSinceSnapshot += count;
+        if (recordsSinceSnapshot >= compactInterval) {
+            snapshot(board, journal);
+            return;
+        }
+        for (int i = journal.getPosition() - count; i < journal.getPosition(); i++) {
+            queue(TYPE_MOVE << 16 | journal.getMove(i));
+        }
+    }
+
+    /**
+     * Queues an undo of the journal.
+     *
+     * @param board   The board the undo was made on.
+     * @param journal The journal that was undone.
+     */
+    public void recordUndo(SudokuBoard board, SudokuMoveJournal journal) {
+        append(TYPE_UNDO, 0, board, journal);
+    }
+
+    /**
+     * Queues a redo of the journal.
+     *
+     * @param board   The board the redo was made on.
+     * @param journal The journal that was redone.
+     */
+    public void recordRedo(SudokuBoard board, SudokuMoveJournal journal) {
+        append(TYPE_REDO, 0, board, journal);
+    }
+
+    /**
+     * Writes everything queued, stops the writer and closes the log.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closing = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+            log.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Error closing the autosave: " + e.getMessage());
+        }
+    }
+
+    private void append(int type, int move, SudokuBoard board, SudokuMoveJournal journal) {
+        if (++recordsSinceSnapshot >= compactInterval) {
+            snapshot(board, journal);  // Compaction: the snapshot replaces the log
+            return;
+        }
+        queue(type << 16 | move);
+    }
+
+    private void queue(int record) {
+        int checked = record | check(record) << 24;
+        synchronized (this) {
+            if (pendingCount == pendingRecords.length) {
+                pendingRecords = Arrays.copyOf(pendingRecords, pendingCount * 2);
+            }
+            pendingRecords[pendingCount++] = checked;
+            notifyAll();
+        }
+    }
+
+    private void runWriter() {
+        while (true) {
+            byte[] snapshot;
+            synchronized (this) {
+                while (!closing && pendingSnapshot == null && pendingCount == 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pendingSnapshot == null && pendingCount == 0) {
+                    return;  // Closing and nothing left to write
+                }
+                snapshot = pendingSnapshot;
+                pendingSnapshot = null;
+                if (writeBuffer.capacity() < pendingCount * RECORD_SIZE) {
+                    writeBuffer = ByteBuffer.allocateDirect(pendingRecords.length * RECORD_SIZE);
+                }
+                writeBuffer.clear();
+                for (int i = 0; i < pendingCount; i++) {
+                    writeBuffer.putInt(pendingRecords[i]);
+                }
+                pendingCount = 0;
+            }
+            try {
+                if (snapshot != null) {
+                    writeSnapshot(snapshot);
+                }
+                writeBuffer.flip();
+                while (writeBuffer.hasRemaining()) {
+                    log.write(writeBuffer);
+                }
+                log.force(false);  // One fsync for everything taken from the queue
+            } catch (IOException e) {
+                System.err.println("Autosave failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Replaces the snapshot and starts a new log for it. Runs on the writer thread.
+     */
+    private void writeSnapshot(byte[] game) throws IOException {
+        generation++;
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + game.length);
+        buffer.putLong(generation).put(game).flip();
+        try (FileChannel channel = FileChannel.open(snapshotTempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        // A crash before the log is reset leaves a log with the old generation, which recovery ignores
+        Files.move(snapshotTempPath, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        resetLog();
+    }
+
+    private void resetLog() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        header.putInt(LOG_MAGIC).putShort(LOG_VERSION).putLong(generation).flip();
+        log.truncate(0);
+        log.position(0);
+        while (header.hasRemaining()) {
+            log.write(header);
+        }
+        log.force(false);
+    }
+
+    /**
+     * Replays the log records onto a recovered game.
+     *
+     * @return The end of the last valid record, or -1 if the log does not belong to the current snapshot.
+     */
+    private long replayLog(SudokuBoard board, SudokuMoveJournal journal) throws IOException {
+        long size = log.size();
+        if (size < LOG_HEADER_SIZE || size > Integer.MAX_VALUE) {
+            return -1;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        log.position(0);
+        while (buffer.hasRemaining() && log.read(buffer) >= 0) {
+            // Read the whole log
+        }
+        buffer.flip();
+        if (buffer.getInt() != LOG_MAGIC || buffer.getShort() != LOG_VERSION || buffer.getLong() != generation) {
+            return -1;
+        }
+        board.beginUpdate();  // The recovered game is reported as one change
+        try {
+            while (buffer.remaining() >= RECORD_SIZE) {
+                int record = buffer.getInt(buffer.position());
+                if (!replay(record, board, journal)) {
+                    break;  // Torn or damaged record: everything after it is discarded
+                }
+                buffer.position(buffer.position() + RECORD_SIZE);
+            }
+        } finally {
+            board.endUpdate();
+        }
+        return buffer.position();
+    }
+
+    private static boolean replay(int record, SudokuBoard board, SudokuMoveJournal journal) {
+        if ((record >>> 24) != check(record & 0xFFFFFF)) {
+            return false;
+        }
+        int move = record & 0xFFFF;
+        switch ((record >> 16) & 0xFF) {
+            case TYPE_MOVE:
+                int cell = move & SudokuMoveJournal.CELL_MASK;
+                int oldValue = (move >> SudokuMoveJournal.OLD_SHIFT) & 0xF;
+                int newValue = (move >> SudokuMoveJournal.NEW_SHIFT) & 0xF;
+                if (cell >= SudokuBoard.CELL_COUNT || newValue > SudokuBoard.GRID_SIZE || oldValue != board.getCellValue(cell)) {
+                    return false;
+                }
+                board.setCellValue(cell, newValue);
+                journal.record(cell, oldValue, newValue, (move & SudokuMoveJournal.LINKED_FLAG) != 0);
+                return true;
+            case TYPE_UNDO: return journal.undo(board);
+            case TYPE_REDO: return journal.redo(board);
+            default: return false;
+        }
+    }
+
+    private static int check(int record) {
+        return (CHECK_SEED ^ record ^ (record >>> 8) ^ (record >>> 16)) & 0xFF;
+    }
+}
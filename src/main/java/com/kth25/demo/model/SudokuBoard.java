@@ -2,53 +2,137 @@ package com.kth25.demo.model;
 
 
 
-import java.io.Serializable;
+import com.kth25.demo.metrics.SudokuMetrics;
+import com.kth25.demo.model.solver.SudokuSolver;
+
+import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Represents a Sudoku board consisting of a 9x9 grid of Sudoku cells.
  * Provides methods to initialize, set, clear, and validate the board.
+ * The whole board is packed into one short per cell (current value, correct value and a given flag),
+ * so a board takes a few hundred bytes and copying it is a single array copy. SudokuCell objects are
+ * only lightweight views over this array.
+ * Validity is tracked incrementally as values change: the number of filled and wrong cells, and for
+ * every row, column and box a mask of the digits that occur more than once. This makes checkBoard,
+ * isComplete and the conflict queries O(1).
+ * The candidates of every cell (the digits that occur in none of its units) are kept as bitmasks as well;
+ * a change only updates the changed digit in the cell and its 20 peers.
+ * Players can also note pencil marks of their own. These are not part of the saved game.
  */
-public class SudokuBoard implements Serializable {
+public class SudokuBoard {
     public static final int GRID_SIZE = 9;
-    private SudokuCell[][] board;  // 2D array of SudokuCell to represent the board
-    private static final long serialVersionUID = 1L;
+    public static final int CELL_COUNT = GRID_SIZE * GRID_SIZE;
+    static final int VALUE_MASK = 0xF;        // Bits 0-3: current value
+    static final int CORRECT_SHIFT = 4;       // Bits 4-7: correct value
+    static final int GIVEN_FLAG = 1 << 8;     // Bit 8: the cell is not editable
+    private static final int UNIT_COUNT = 3 * GRID_SIZE;  // 9 rows, 9 columns and 9 boxes
+    private static final int PEER_COUNT = 20;             // Other cells sharing a row, column or box
+    private static final int ALL_DIGITS = (1 << GRID_SIZE) - 1;
+    private final short[] cells = new short[CELL_COUNT];  // Packed cells in row-major order
+
+    /** The row, column and box unit of each cell; units are numbered rows 0-8, columns 9-17, boxes 18-26 */
+    private static final int[][] CELL_UNITS = new int[CELL_COUNT][3];
+    /** The cells sharing a unit with each cell */
+    private static final int[][] CELL_PEERS = new int[CELL_COUNT][PEER_COUNT];
+
+    static {
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int row = cell / GRID_SIZE;
+            int col = cell % GRID_SIZE;
+            CELL_UNITS[cell][0] = row;
+            CELL_UNITS[cell][1] = GRID_SIZE + col;
+            CELL_UNITS[cell][2] = 2 * GRID_SIZE + (row / 3) * 3 + col / 3;
+        }
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int peers = 0;
+            for (int other = 0; other < CELL_COUNT; other++) {
+                if (other != cell && (CELL_UNITS[cell][0] == CELL_UNITS[other][0]
+                        || CELL_UNITS[cell][1] == CELL_UNITS[other][1] || CELL_UNITS[cell][2] == CELL_UNITS[other][2])) {
+                    CELL_PEERS[cell][peers++] = other;
+                }
+            }
+        }
+    }
+
+    // Incremental validity tracking, derived from cells and rebuilt when they are replaced
+    private int filledCount;        // Cells with a value
+    private int wrongCount;         // Filled cells whose value is not the correct value
+    private int conflictCount;      // (unit, digit) pairs where the digit occurs more than once
+    private final byte[] digitCounts = new byte[UNIT_COUNT * GRID_SIZE];  // Occurrences of each digit in each unit, [unit * 9 + digit - 1]
+    private final int[] conflictMasks = new int[UNIT_COUNT];              // Digits occurring more than once in each unit
+    private long emptyLow;          // Empty editable cells 0-63, one bit per cell
+    private long emptyHigh;         // Empty editable cells 64-80
+    private final short[] candidateMasks = new short[CELL_COUNT];  // Digits occurring in none of each cell's units
+    private final short[] pencilMarks = new short[CELL_COUNT];     // Digits the player noted in each cell
+    private List<SudokuBoardListener> listeners;
+    private int updateDepth;        // Nesting depth of beginUpdate calls
+    private boolean batchChanged;   // Whether a change happened inside the current update
 
     /**
      * Constructs an empty Sudoku board with all cells set as editable.
      */
     public SudokuBoard() {
-        board = new SudokuCell[GRID_SIZE][GRID_SIZE];
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                // Initialize all cells as empty and editable initially
-                board[row][col] = new SudokuCell(0, true);
-            }
-        }
+        // All cells start empty and editable, which is the all-zero packing
+        rebuildTracking();
     }
 
     /**
      * Initializes the board with given initial and correct values.
      *
      * @param initialValues A 3-dimensional array where [row][col][0] contains initial values
-     *                      and [row][col][1] contains solution values.
+     *                      and [row][col][1] contains solution values. If the solution values are
+     *                      missing, the puzzle is solved to fill them in.
+     * @throws IllegalArgumentException If the solution values are missing and the puzzle has no solution.
      */
     public void initializeBoard(int[][][] initialValues) {
+        initializeBoard(initialValues, SudokuSolver.Engine.BITMASK);
+    }
+
+    /**
+     * Initializes the board with given initial values, solving the puzzle with the given engine
+     * if the solution values are missing.
+     *
+     * @param initialValues A 3-dimensional array where [row][col][0] contains initial values
+     *                      and [row][col][1], if present, contains solution values.
+     * @param engine        The solving engine used when the solution values are missing.
+     * @throws IllegalArgumentException If the solution values are missing and the puzzle has no solution.
+     */
+    public void initializeBoard(int[][][] initialValues, SudokuSolver.Engine engine) {
+        if (!SudokuUtilities.hasSolutionValues(initialValues)) {
+            initialValues = SudokuUtilities.solveSudokuMatrix(initialValues, engine);
+        }
         for (int row = 0; row < GRID_SIZE; row++) {
             for (int col = 0; col < GRID_SIZE; col++) {
                 int value = initialValues[row][col][0];  // Initial value
                 int correctValue = initialValues[row][col][1];  // Solution value
-                boolean isEditable = value == 0;  // Only empty cells are editable
 
-                // Initialize each cell with initial and correct value
-                board[row][col] = new SudokuCell(correctValue, isEditable);
+                // Only empty cells are editable
+                cells[row * GRID_SIZE + col] = pack(value, correctValue, value != 0);
+            }
+        }
+        rebuildTracking();
+        fireBoardChanged();
+    }
 
-                // Set the initial value, regardless of whether the cell is editable or not
-                board[row][col].setValue(value);
+    /**
+     * Initializes the board from a transformed view of a puzzle, reading the values straight through the view.
+     *
+     * @param view The puzzle view providing initial and solution values.
+     */
+    public void initializeBoard(SudokuPuzzleView view) {
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                int value = view.getInitialValue(row, col);
+                cells[row * GRID_SIZE + col] = pack(value, view.getSolutionValue(row, col), value != 0);
             }
         }
+        rebuildTracking();
+        fireBoardChanged();
     }
 
     /**
@@ -59,7 +143,39 @@ public class SudokuBoard implements Serializable {
      * @param value The value to set for the cell.
      */
     public void setValue(int row, int col, int value) {
-        board[row][col].setValue(value);
+        setCellValue(row * GRID_SIZE + col, value);
+    }
+
+    /**
+     * Applies a packed move and reports its outcome, for server-side play.
+     * Takes no locks and allocates nothing; the board is not thread-safe, so each board
+     * must only be used from one thread at a time.
+     *
+     * @param move A move packed with SudokuMove.of.
+     * @return A result packed as described in SudokuMove: the status and the cell's old value.
+     */
+    public int applyMove(int move) {
+        if (!SudokuMove.isValid(move)) {
+            return SudokuMove.result(SudokuMove.REJECTED, 0);
+        }
+        int cell = SudokuMove.cell(move);
+        int oldValue = getCellValue(cell);
+        if (!isCellEditable(cell)) {
+            return SudokuMove.result(SudokuMove.REJECTED, oldValue);
+        }
+        int digit = SudokuMove.digit(move);
+        setCellValue(cell, digit);
+        int status;
+        if (isComplete()) {
+            status = SudokuMove.COMPLETED;
+        } else if (digit != 0 && isConflicting(cell / GRID_SIZE, cell % GRID_SIZE)) {
+            status = SudokuMove.CONFLICTING;
+        } else if (digit != 0 && digit != getCellCorrectValue(cell)) {
+            status = SudokuMove.WRONG;
+        } else {
+            status = SudokuMove.ACCEPTED;
+        }
+        return SudokuMove.result(status, oldValue);
     }
 
     /**
@@ -70,7 +186,29 @@ public class SudokuBoard implements Serializable {
      * @return The current value of the cell.
      */
     public int getValue(int row, int col) {
-        return board[row][col].getValue();
+        return cells[row * GRID_SIZE + col] & VALUE_MASK;
+    }
+
+    /**
+     * Gets the correct value of a specific cell.
+     *
+     * @param row The row index of the cell.
+     * @param col The column index of the cell.
+     * @return The correct value of the cell.
+     */
+    public int getCorrectValue(int row, int col) {
+        return getCellCorrectValue(row * GRID_SIZE + col);
+    }
+
+    /**
+     * Checks if a specific cell is editable.
+     *
+     * @param row The row index of the cell.
+     * @param col The column index of the cell.
+     * @return True if the cell is editable, false if it is a given.
+     */
+    public boolean isEditable(int row, int col) {
+        return isCellEditable(row * GRID_SIZE + col);
     }
 
     /**
@@ -79,26 +217,173 @@ public class SudokuBoard implements Serializable {
      * @return True if all cells are correctly filled, false otherwise.
      */
     public boolean isComplete() {
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (!board[row][col].isCorrect()) {
-                    return false;  // If any cell is empty or incorrect
-                }
-            }
+        return filledCount == CELL_COUNT && wrongCount == 0;  // All cells are filled and correct
+    }
+
+    /**
+     * Gets the number of cells that currently have a value.
+     *
+     * @return The number of filled cells, givens included.
+     */
+    public int getFilledCount() {
+        return filledCount;
+    }
+
+    /**
+     * Gets the number of filled cells whose value is not the correct value.
+     *
+     * @return The number of wrong cells.
+     */
+    public int getWrongCount() {
+        return wrongCount;
+    }
+
+    /**
+     * Checks if any row, column or box contains the same digit more than once.
+     *
+     * @return True if the board has conflicting cells.
+     */
+    public boolean hasConflicts() {
+        return conflictCount > 0;
+    }
+
+    /**
+     * Checks if a cell's value also occurs elsewhere in its row, column or box.
+     *
+     * @param row The row index of the cell.
+     * @param col The column index of the cell.
+     * @return True if the cell conflicts with another cell, false if it is empty or has no conflicts.
+     */
+    public boolean isConflicting(int row, int col) {
+        int value = getValue(row, col);
+        if (value == 0) {
+            return false;
         }
-        return true;  // All cells are filled and correct
+        int box = (row / 3) * 3 + col / 3;
+        int conflicts = conflictMasks[row] | conflictMasks[GRID_SIZE + col] | conflictMasks[2 * GRID_SIZE + box];
+        return (conflicts & (1 << (value - 1))) != 0;
+    }
+
+    /**
+     * Gets the digits that occur more than once in a row.
+     *
+     * @param row The row index.
+     * @return A 9-bit mask where bit d - 1 is set if d occurs more than once.
+     */
+    public int getRowConflicts(int row) {
+        return conflictMasks[row];
+    }
+
+    /**
+     * Gets the digits that occur more than once in a column.
+     *
+     * @param col The column index.
+     * @return A 9-bit mask where bit d - 1 is set if d occurs more than once.
+     */
+    public int getColumnConflicts(int col) {
+        return conflictMasks[GRID_SIZE + col];
+    }
+
+    /**
+     * Gets the digits that occur more than once in a 3x3 box.
+     *
+     * @param box The box index, 0-8 in row-major order.
+     * @return A 9-bit mask where bit d - 1 is set if d occurs more than once.
+     */
+    public int getBoxConflicts(int box) {
+        return conflictMasks[2 * GRID_SIZE + box];
     }
 
 
     /**
-     * Gets the entire Sudoku board.
+     * Gets the entire Sudoku board as cell views. The views read and write this board directly,
+     * but a new array of views is created on every call, so prefer the row/column accessors.
      *
      * @return A 2D array of SudokuCell representing the board.
      */
     public SudokuCell[][] getBoard() {
+        SudokuCell[][] board = new SudokuCell[GRID_SIZE][GRID_SIZE];
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                board[row][col] = new SudokuCell(this, row * GRID_SIZE + col);
+            }
+        }
         return board;
     }
 
+    /**
+     * Creates a copy of this board.
+     *
+     * @return A new, independent board with the same state.
+     */
+    public SudokuBoard copy() {
+        SudokuBoard copy = new SudokuBoard();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Overwrites the state of this board with the state of another board.
+     *
+     * @param other The board to copy from.
+     */
+    public void copyFrom(SudokuBoard other) {
+        System.arraycopy(other.cells, 0, cells, 0, CELL_COUNT);
+        System.arraycopy(other.digitCounts, 0, digitCounts, 0, digitCounts.length);
+        System.arraycopy(other.conflictMasks, 0, conflictMasks, 0, UNIT_COUNT);
+        filledCount = other.filledCount;
+        wrongCount = other.wrongCount;
+        conflictCount = other.conflictCount;
+        emptyLow = other.emptyLow;
+        emptyHigh = other.emptyHigh;
+        System.arraycopy(other.candidateMasks, 0, candidateMasks, 0, CELL_COUNT);
+        System.arraycopy(other.pencilMarks, 0, pencilMarks, 0, CELL_COUNT);
+        fireBoardChanged();
+    }
+
+    /**
+     * Registers a listener that is notified when cells change.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(SudokuBoardListener listener) {
+        if (listeners == null) {
+            listeners = new ArrayList<>();
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(SudokuBoardListener listener) {
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Starts a batch of changes. Until the matching endUpdate, cell changes are not reported one
+     * by one; endUpdate reports a single board change instead. Batches may be nested.
+     */
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    /**
+     * Ends a batch of changes started with beginUpdate. When the outermost batch ends and any cell
+     * changed inside it, listeners receive one boardChanged call.
+     */
+    public void endUpdate() {
+        if (updateDepth == 0) throw new IllegalStateException("endUpdate without beginUpdate");
+        if (--updateDepth == 0 && batchChanged) {
+            batchChanged = false;
+            fireBoardChanged();
+        }
+    }
+
     /**
      * Converts the Sudoku board into a 3-dimensional matrix of values.
      *
@@ -109,8 +394,7 @@ public class SudokuBoard implements Serializable {
 
         for (int row = 0; row < GRID_SIZE; row++) {
             for (int col = 0; col < GRID_SIZE; col++) {
-                SudokuCell cell = board[row][col];
-                matrix[row][col][0] = cell.getValue();  // Fill matrix with the current value of each cell
+                matrix[row][col][0] = getValue(row, col);  // Fill matrix with the current value of each cell
             }
         }
 
@@ -123,29 +407,89 @@ public class SudokuBoard implements Serializable {
      * @return An array containing the row and column of the cell that was filled, or null if no empty cells are available.
      */
     public int[] provideHint() {
-        List<int[]> emptyCells = new ArrayList<>();
+        long start = SudokuMetrics.startTimer();
+        int cell = pickEmptyCell(ThreadLocalRandom.current());
+        if (cell < 0) {
+            System.out.println("No empty cells left to provide a hint.");
+            return null;  // Return null if no empty cells are available
+        }
+        setCellValue(cell, getCellCorrectValue(cell));  // Fill the cell with the correct value
+        SudokuMetrics.HINT_TIME.recordSince(start);
+        return new int[]{cell / GRID_SIZE, cell % GRID_SIZE};  // Return the position of the cell that was hinted
+    }
 
-        // Find all empty or cleared editable cells
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (board[row][col].getValue() == 0 && board[row][col].isEditable()) {  // Empty and editable cell
-                    emptyCells.add(new int[]{row, col});
-                }
-            }
+    /**
+     * Gets the number of empty editable cells.
+     *
+     * @return The number of cells a player can still fill.
+     */
+    public int getEmptyCount() {
+        return Long.bitCount(emptyLow) + Long.bitCount(emptyHigh);
+    }
+
+    /**
+     * Picks a random empty editable cell in constant time, without allocating.
+     *
+     * @param random The random source.
+     * @return The cell index (row * 9 + col), or -1 if there are no empty editable cells.
+     */
+    public int pickEmptyCell(RandomGenerator random) {
+        int lowCount = Long.bitCount(emptyLow);
+        int count = lowCount + Long.bitCount(emptyHigh);
+        if (count == 0) {
+            return -1;
         }
+        int k = random.nextInt(count);
+        return k < lowCount ? selectBit(emptyLow, k) : Long.SIZE + selectBit(emptyHigh, k - lowCount);
+    }
 
-        // If there are empty cells, choose one randomly and provide a hint
-        if (!emptyCells.isEmpty()) {
-            Random rand = new Random();
-            int[] randomCell = emptyCells.get(rand.nextInt(emptyCells.size()));
-            int row = randomCell[0];
-            int col = randomCell[1];
-            board[row][col].setValue(board[row][col].getCorrectValue());  // Fill the cell with the correct value
-            return new int[]{row, col};  // Return the position of the cell that was hinted
-        } else {
-            System.out.println("No empty cells left to provide a hint.");
-            return null;  // Return null if no empty cells are available
+    /**
+     * Gets the index of the k-th set bit, counting from the lowest.
+     */
+    private static int selectBit(long bits, int k) {
+        for (int i = 0; i < k; i++) {
+            bits &= bits - 1;  // Clear the lowest set bit
         }
+        return Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Gets the candidates of a cell: the digits that occur nowhere in its row, column and box.
+     * The masks are kept up to date on every change, so this is a single array read.
+     *
+     * @param row The row index of the cell.
+     * @param col The column index of the cell.
+     * @return A 9-bit mask where bit d - 1 is set if d is a candidate.
+     */
+    public int getCandidates(int row, int col) {
+        return candidateMasks[row * GRID_SIZE + col];
+    }
+
+    /**
+     * Gets the pencil marks the player noted in a cell.
+     *
+     * @param row The row index of the cell.
+     * @param col The column index of the cell.
+     * @return A 9-bit mask where bit d - 1 is set if d is marked.
+     */
+    public int getPencilMarks(int row, int col) {
+        return pencilMarks[row * GRID_SIZE + col];
+    }
+
+    /**
+     * Adds a pencil mark to a cell, or removes it if the cell already has it.
+     * Pencil marks are cleared when a new board is loaded.
+     *
+     * @param row   The row index of the cell.
+     * @param col   The column index of the cell.
+     * @param digit The digit to mark (1-9).
+     * @throws IllegalArgumentException If digit is out of range.
+     */
+    public void togglePencilMark(int row, int col, int digit) {
+        if (digit < 1 || digit > GRID_SIZE) throw new IllegalArgumentException("digit " + digit);
+        int cell = row * GRID_SIZE + col;
+        pencilMarks[cell] = (short) (pencilMarks[cell] ^ 1 << (digit - 1));
+        fireCellChanged(cell);
     }
 
     /**
@@ -167,14 +511,7 @@ public class SudokuBoard implements Serializable {
      * @return True if all filled cells are correct, false otherwise.
      */
     public boolean checkBoard() {
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (board[row][col].getValue() != 0 && !board[row][col].isCorrect()) {
-                    return false;  // If any filled cell has an incorrect value
-                }
-            }
-        }
-        return true;  // All filled values are correct
+        return wrongCount == 0;  // No filled cell has an incorrect value
     }
 
 
@@ -182,13 +519,192 @@ public class SudokuBoard implements Serializable {
      * Clears all editable cells on the board.
      */
     public void clearAllEditableCells() {
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (board[row][col].isEditable()) {
-                    board[row][col].setValue(0);  // Clear the cell if it is editable
+        beginUpdate();  // Reported as one board change
+        try {
+            for (int cell = 0; cell < CELL_COUNT; cell++) {
+                if (isCellEditable(cell)) {
+                    setCellValue(cell, 0);  // Clear the cell if it is editable
                 }
             }
+        } finally {
+            endUpdate();
+        }
+    }
+
+    // Packed cell accessors, indexed by cell = row * GRID_SIZE + col. Used by SudokuCell views.
+
+    int getCellValue(int cell) {
+        return cells[cell] & VALUE_MASK;
+    }
+
+    int getCellCorrectValue(int cell) {
+        return (cells[cell] >> CORRECT_SHIFT) & VALUE_MASK;
+    }
+
+    boolean isCellEditable(int cell) {
+        return (cells[cell] & GIVEN_FLAG) == 0;
+    }
+
+    boolean isCellCorrect(int cell) {
+        return getCellValue(cell) == getCellCorrectValue(cell);
+    }
+
+    void setCellValue(int cell, int value) {
+        if (value < 0 || value > GRID_SIZE) throw new IllegalArgumentException("value " + value);
+        int oldValue = getCellValue(cell);
+        if (oldValue == value) {
+            return;
+        }
+        untrack(cell, oldValue);
+        cells[cell] = (short) ((cells[cell] & ~VALUE_MASK) | value);
+        track(cell, value);
+        updateCandidates(cell, oldValue);
+        updateCandidates(cell, value);
+        updateEmpty(cell);
+        fireCellChanged(cell);
+    }
+
+    /**
+     * Overwrites a cell without tracking or notification. After a series of calls,
+     * cellsReplaced must be called to bring the tracking up to date.
+     */
+    void setCellState(int cell, int value, int correctValue, boolean isGiven) {
+        cells[cell] = pack(value, correctValue, isGiven);
+    }
+
+    /**
+     * Rebuilds the tracking after cells were overwritten with setCellState and reports a board change.
+     */
+    void cellsReplaced() {
+        rebuildTracking();
+        fireBoardChanged();
+    }
+
+    void setCellEditable(int cell, boolean isEditable) {
+        cells[cell] = (short) (isEditable ? cells[cell] & ~GIVEN_FLAG : cells[cell] | GIVEN_FLAG);
+        updateEmpty(cell);
+        fireCellChanged(cell);
+    }
+
+    private void fireCellChanged(int cell) {
+        if (updateDepth > 0) {
+            batchChanged = true;
+            return;
+        }
+        if (listeners == null) {
+            return;
+        }
+        for (int i = 0; i < listeners.size(); i++) {  // Indexed, so a move allocates no iterator
+            listeners.get(i).cellChanged(cell / GRID_SIZE, cell % GRID_SIZE);
+        }
+    }
+
+    private void fireBoardChanged() {
+        if (updateDepth > 0) {
+            batchChanged = true;
+            return;
+        }
+        if (listeners == null) {
+            return;
+        }
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).boardChanged();
+        }
+    }
+
+    /**
+     * Recomputes all tracking counters from the packed cells.
+     */
+    private void rebuildTracking() {
+        Arrays.fill(digitCounts, (byte) 0);
+        Arrays.fill(conflictMasks, 0);
+        filledCount = 0;
+        wrongCount = 0;
+        conflictCount = 0;
+        emptyLow = 0;
+        emptyHigh = 0;
+        Arrays.fill(pencilMarks, (short) 0);  // Marks belong to the previous board
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            track(cell, getCellValue(cell));
+            updateEmpty(cell);
+        }
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            candidateMasks[cell] = ALL_DIGITS;
+            for (int digit = 1; digit <= GRID_SIZE; digit++) {
+                updateCandidate(cell, digit);
+            }
+        }
+    }
+
+    /**
+     * Updates whether a digit is a candidate in a cell and its peers, after the digit was placed or removed.
+     */
+    private void updateCandidates(int cell, int digit) {
+        if (digit == 0) {
+            return;
+        }
+        updateCandidate(cell, digit);
+        for (int peer : CELL_PEERS[cell]) {
+            updateCandidate(peer, digit);
+        }
+    }
+
+    private void updateCandidate(int cell, int digit) {
+        int[] units = CELL_UNITS[cell];
+        boolean free = digitCounts[units[0] * GRID_SIZE + digit - 1] == 0
+                && digitCounts[units[1] * GRID_SIZE + digit - 1] == 0
+                && digitCounts[units[2] * GRID_SIZE + digit - 1] == 0;
+        int bit = 1 << (digit - 1);
+        candidateMasks[cell] = (short) (free ? candidateMasks[cell] | bit : candidateMasks[cell] & ~bit);
+    }
+
+    private void updateEmpty(int cell) {
+        boolean empty = (cells[cell] & (VALUE_MASK | GIVEN_FLAG)) == 0;  // No value and editable
+        long bit = 1L << (cell % Long.SIZE);
+        if (cell < Long.SIZE) {
+            emptyLow = empty ? emptyLow | bit : emptyLow & ~bit;
+        } else {
+            emptyHigh = empty ? emptyHigh | bit : emptyHigh & ~bit;
+        }
+    }
+
+    private void track(int cell, int value) {
+        if (value == 0) {
+            return;
+        }
+        filledCount++;
+        if (value != getCellCorrectValue(cell)) {
+            wrongCount++;
+        }
+        int bit = 1 << (value - 1);
+        for (int unit : CELL_UNITS[cell]) {
+            if (++digitCounts[unit * GRID_SIZE + value - 1] == 2) {
+                conflictMasks[unit] |= bit;
+                conflictCount++;
+            }
         }
     }
 
+    private void untrack(int cell, int value) {
+        if (value == 0) {
+            return;
+        }
+        filledCount--;
+        if (value != getCellCorrectValue(cell)) {
+            wrongCount--;
+        }
+        int bit = 1 << (value - 1);
+        for (int unit : CELL_UNITS[cell]) {
+            if (digitCounts[unit * GRID_SIZE + value - 1]-- == 2) {
+                conflictMasks[unit] &= ~bit;
+                conflictCount--;
+            }
+        }
+    }
+
+    private static short pack(int value, int correctValue, boolean given) {
+        if (value < 0 || value > GRID_SIZE) throw new IllegalArgumentException("value " + value);
+        if (correctValue < 0 || correctValue > GRID_SIZE) throw new IllegalArgumentException("value " + correctValue);
+        return (short) (value | (correctValue << CORRECT_SHIFT) | (given ? GIVEN_FLAG : 0));
+    }
 }
\ No newline at end of file
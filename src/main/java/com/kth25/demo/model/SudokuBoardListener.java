@@ -0,0 +1,21 @@
+package com.kth25.demo.model;
+
+
+/**
+ * Listener notified when the values of a SudokuBoard change, so views can repaint only what changed.
+ */
+public interface SudokuBoardListener {
+
+    /**
+     * Called after the value or editable status of a single cell has changed.
+     *
+     * @param row The row index of the cell.
+     * @param col The column index of the cell.
+     */
+    void cellChanged(int row, int col);
+
+    /**
+     * Called after many cells may have changed at once, for example when a new puzzle is loaded.
+     */
+    void boardChanged();
+}
@@ -0,0 +1,181 @@
+package com.kth25.demo.model;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+import static com.kth25.demo.model.SudokuUtilities.SECTION_SIZE;
+
+/**
+ * Computes the canonical form of a puzzle: the lexicographically smallest 81-cell sequence (row-major,
+ * 0 for empty cells) among all puzzles reachable through a SudokuTransform. Two puzzles have the same
+ * canonical form exactly when one is a transformed copy of the other.
+ * The search builds the canonical form one target row at a time and only keeps the partial transforms
+ * whose rows so far are the smallest possible, so it never enumerates the whole group.
+ */
+public final class SudokuCanonicalizer {
+    private static final int CELL_COUNT = GRID_SIZE * GRID_SIZE;
+
+    /** Every column map allowed by the group (stack permutation plus permutations within stacks) */
+    private static final int[][] COLUMN_MAPS = new int[SudokuTransform.LINE_CODES][];
+
+    static {
+        for (int code = 0; code < COLUMN_MAPS.length; code++) {
+            COLUMN_MAPS[code] = SudokuTransform.decodeLines(code);
+        }
+    }
+
+    private SudokuCanonicalizer() {
+    }
+
+    /**
+     * Computes the canonical form of a puzzle.
+     *
+     * @param puzzle 81 cell values in row-major order, 0 for empty cells. Not modified.
+     * @return A new array with the canonical form.
+     */
+    public static int[] canonicalForm(int[] puzzle) {
+        int[] canonical = new int[CELL_COUNT];
+        canonicalTransform(puzzle).apply(puzzle, canonical);
+        return canonical;
+    }
+
+    /**
+     * Finds a transform that maps the puzzle to its canonical form.
+     * If the puzzle has symmetries, several transforms give the same result and one of them is returned.
+     *
+     * @param puzzle 81 cell values in row-major order, 0 for empty cells. Not modified.
+     * @return A transform mapping the puzzle to its canonical form.
+     */
+    public static SudokuTransform canonicalTransform(int[] puzzle) {
+        if (puzzle.length != CELL_COUNT) throw new IllegalArgumentException("cell count " + puzzle.length);
+
+        List<Candidate> beam = new ArrayList<>();
+        for (int transpose = 0; transpose < 2; transpose++) {
+            for (int[] colMap : COLUMN_MAPS) {
+                beam.add(new Candidate(transpose == 1, colMap));
+            }
+        }
+
+        int[] rowValues = new int[GRID_SIZE];
+        int[] bestRow = new int[GRID_SIZE];
+        byte[] labels = new byte[GRID_SIZE + 1];
+        for (int targetRow = 0; targetRow < GRID_SIZE; targetRow++) {
+            List<Candidate> next = new ArrayList<>();
+            boolean haveBest = false;
+            for (Candidate candidate : beam) {
+                for (int sourceRow = 0; sourceRow < GRID_SIZE; sourceRow++) {
+                    if (!candidate.allows(targetRow, sourceRow)) {
+                        continue;
+                    }
+                    int nextLabel = candidate.evaluate(puzzle, sourceRow, rowValues, labels, haveBest ? bestRow : null);
+                    if (nextLabel < 0) {
+                        continue;  // Already larger than the best row
+                    }
+                    int cmp = haveBest ? compare(rowValues, bestRow) : -1;
+                    if (cmp < 0) {
+                        // A strictly smaller row: every candidate kept so far is beaten
+                        next.clear();
+                        System.arraycopy(rowValues, 0, bestRow, 0, GRID_SIZE);
+                        haveBest = true;
+                    }
+                    next.add(candidate.extend(targetRow, sourceRow, labels, nextLabel));
+                }
+            }
+            beam = next;
+        }
+        return beam.get(0).toTransform();
+    }
+
+    private static int compare(int[] a, int[] b) {
+        for (int i = 0; i < GRID_SIZE; i++) {
+            if (a[i] != b[i]) {
+                return a[i] < b[i] ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A partial transform: the transpose flag and column map are fixed, the first rows are chosen,
+     * and digits are labeled 1, 2, 3... in the order they first appear in the chosen rows.
+     */
+    private static final class Candidate {
+        private final boolean transpose;
+        private final int[] colMap;
+        private final int[] rowMap = new int[GRID_SIZE];
+        private final byte[] labels = new byte[GRID_SIZE + 1];  // Label of each source digit, 0 if not seen yet
+        private int nextLabel = 1;
+        private int usedRows;  // Bitmask of source rows already chosen
+
+        Candidate(boolean transpose, int[] colMap) {
+            this.transpose = transpose;
+            this.colMap = colMap;
+        }
+
+        /**
+         * Checks whether a source row can be placed at the target row while keeping bands together.
+         */
+        boolean allows(int targetRow, int sourceRow) {
+            if ((usedRows & (1 << sourceRow)) != 0) {
+                return false;
+            }
+            if (targetRow % SECTION_SIZE == 0) {
+                // First row of a target band: any source band that has not been used yet
+                int bandMask = 0b111 << (sourceRow / SECTION_SIZE * SECTION_SIZE);
+                return (usedRows & bandMask) == 0;
+            }
+            return sourceRow / SECTION_SIZE == rowMap[targetRow - 1] / SECTION_SIZE;
+        }
+
+        /**
+         * Writes the labeled values of a source row into rowValues and the extended labels into newLabels.
+         *
+         * @param bound The best row so far, or null. Evaluation stops as soon as the row is known to be larger.
+         * @return The next unused label after this row, or -1 if the row is larger than bound.
+         */
+        int evaluate(int[] puzzle, int sourceRow, int[] rowValues, byte[] newLabels, int[] bound) {
+            boolean tied = bound != null;
+            System.arraycopy(labels, 0, newLabels, 0, labels.length);
+            int label = nextLabel;
+            for (int col = 0; col < GRID_SIZE; col++) {
+                int sourceCol = colMap[col];
+                int value = transpose
+                        ? puzzle[sourceCol * GRID_SIZE + sourceRow]
+                        : puzzle[sourceRow * GRID_SIZE + sourceCol];
+                if (value != 0 && newLabels[value] == 0) {
+                    newLabels[value] = (byte) label++;
+                }
+                rowValues[col] = newLabels[value];
+                if (tied && rowValues[col] != bound[col]) {
+                    if (rowValues[col] > bound[col]) {
+                        return -1;
+                    }
+                    tied = false;  // Smaller than the bound from here on
+                }
+            }
+            return label;
+        }
+
+        Candidate extend(int targetRow, int sourceRow, byte[] newLabels, int newNextLabel) {
+            Candidate child = new Candidate(transpose, colMap);
+            System.arraycopy(rowMap, 0, child.rowMap, 0, targetRow);
+            child.rowMap[targetRow] = sourceRow;
+            System.arraycopy(newLabels, 0, child.labels, 0, newLabels.length);
+            child.nextLabel = newNextLabel;
+            child.usedRows = usedRows | (1 << sourceRow);
+            return child;
+        }
+
+        SudokuTransform toTransform() {
+            // Digits that never appear in the puzzle get the remaining labels in increasing order
+            int[] digits = new int[GRID_SIZE];
+            int label = nextLabel;
+            for (int digit = 1; digit <= GRID_SIZE; digit++) {
+                digits[digit - 1] = labels[digit] != 0 ? labels[digit] : label++;
+            }
+            return SudokuTransform.of(rowMap, colMap, transpose, digits);
+        }
+    }
+}
@@ -1,29 +1,26 @@
 package com.kth25.demo.model;
 
 
-import java.io.Serializable;
-
 /**
  * Represents a single cell in a Sudoku board. Each cell has a correct value, a current value,
  * and an editable status to determine if the cell's value can be modified.
+ * A cell is a lightweight view: it holds no state of its own and reads and writes the packed
+ * cell array of its SudokuBoard.
  */
-public class SudokuCell implements Serializable {
+public class SudokuCell {
 
-    private int correctValue;  // The correct value of the cell
-    private int currentValue;  // The current value of the cell (can be 0 for empty cells)
-    private boolean isEditable;  // Indicates if the cell is editable
-    private static final long serialVersionUID = 1L;
+    private final SudokuBoard board;  // The board holding the cell's state
+    private final int index;          // Cell index in row-major order
 
     /**
-     * Constructs a SudokuCell with the specified correct value and editable status.
+     * Constructs a view of a cell of a board.
      *
-     * @param correctValue The correct value of the cell.
-     * @param isEditable   Indicates whether the cell is editable.
+     * @param board The board the cell belongs to.
+     * @param index The cell index in row-major order (0-80).
      */
-    public SudokuCell(int correctValue, boolean isEditable) {
-        this.correctValue = correctValue;
-        this.isEditable = isEditable;
-        this.currentValue = 0;  // Starts as empty (0 represents an empty cell)
+    SudokuCell(SudokuBoard board, int index) {
+        this.board = board;
+        this.index = index;
     }
 
     /**
@@ -32,7 +29,7 @@ public class SudokuCell implements Serializable {
      * @param value The value to set for the cell.
      */
     public void setValue(int value) {
-        this.currentValue = value;
+        board.setCellValue(index, value);
     }
 
     /**
@@ -41,7 +38,7 @@ public class SudokuCell implements Serializable {
      * @param isEditable Indicates whether the cell should be editable.
      */
     public void setEditable(boolean isEditable) {
-        this.isEditable = isEditable;
+        board.setCellEditable(index, isEditable);
     }
 
     /**
@@ -50,7 +47,7 @@ public class SudokuCell implements Serializable {
      * @return The current value of the cell.
      */
     public int getValue() {
-        return this.currentValue;
+        return board.getCellValue(index);
     }
 
     /**
@@ -59,7 +56,7 @@ public class SudokuCell implements Serializable {
      * @return The correct value of the cell.
      */
     public int getCorrectValue() {
-        return correctValue;
+        return board.getCellCorrectValue(index);
     }
 
     /**
@@ -68,7 +65,7 @@ public class SudokuCell implements Serializable {
      * @return True if the current value is equal to the correct value, false otherwise.
      */
     public boolean isCorrect() {
-        return this.currentValue == this.correctValue;
+        return board.isCellCorrect(index);
     }
 
     /**
@@ -77,6 +74,6 @@ public class SudokuCell implements Serializable {
      * @return True if the cell is editable, false otherwise.
      */
     public boolean isEditable() {
-        return this.isEditable;
+        return board.isCellEditable(index);
     }
 }
@@ -0,0 +1,306 @@
+package com.kth25.demo.model;
+
+
+import com.kth25.demo.metrics.SudokuGenerationEvent;
+import com.kth25.demo.metrics.SudokuMetrics;
+import com.kth25.demo.model.solver.BitmaskSolver;
+import com.kth25.demo.model.solver.HumanSolver;
+import com.kth25.demo.model.solver.SudokuSolver;
+
+import java.util.random.RandomGenerator;
+
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * Generates random Sudoku puzzles with a unique solution.
+ * A random full grid is built first, then clues are removed in random order as long as the
+ * puzzle keeps exactly one solution, until the clue count for the requested level is reached.
+ * That fast path only sets the difficulty by the clue count. The rated path also rates every candidate
+ * puzzle with a HumanSolver and generates again until its hardest technique matches the level, which
+ * takes several attempts for MEDIUM and HARD, so it is several times slower; it is meant for background
+ * and offline generation.
+ * The generator reuses its solver and scratch arrays, so it is not thread-safe; use one generator per thread.
+ */
+public class SudokuGenerator {
+    public static final int CELL_COUNT = GRID_SIZE * GRID_SIZE;
+    /** How many puzzles generateRated tries before accepting one outside the level's technique range */
+    public static final int MAX_RATING_ATTEMPTS = 64;
+
+    private final SudokuSolver solver;
+    private final HumanSolver rater = new HumanSolver();
+    private final RandomGenerator random;
+    private final int[] order = new int[CELL_COUNT];  // Random order in which clues are removed
+    private final int[] digits = new int[GRID_SIZE];
+
+    /**
+     * Constructs a generator using the bitmask solver for its uniqueness checks.
+     *
+     * @param random The random source used for grids and clue removal.
+     */
+    public SudokuGenerator(RandomGenerator random) {
+        this(new BitmaskSolver(), random);
+    }
+
+    /**
+     * Constructs a generator using the given solver for its uniqueness checks.
+     *
+     * @param solver The solver used to build full grids and to count solutions.
+     * @param random The random source used for grids and clue removal.
+     */
+    public SudokuGenerator(SudokuSolver solver, RandomGenerator random) {
+        this.solver = solver;
+        this.random = random;
+        for (int i = 0; i < GRID_SIZE; i++) {
+            digits[i] = i + 1;
+        }
+        for (int i = 0; i < CELL_COUNT; i++) {
+            order[i] = i;
+        }
+    }
+
+    /**
+     * Gets the number of clues a generated puzzle should have for a difficulty level.
+     *
+     * @param level The difficulty level (EASY, MEDIUM, HARD).
+     * @return The target number of given cells.
+     */
+    public static int getTargetClues(SudokuUtilities.SudokuLevel level) {
+        switch (level) {
+            case EASY: return 38;
+            case HARD: return 26;
+            default: return 32;
+        }
+    }
+
+    /**
+     * Gets the number of clues generateRated removes down to for a difficulty level.
+     * MEDIUM goes lower than getTargetClues, since at 32 clues only about 2% of puzzles need more than singles.
+     *
+     * @param level The difficulty level (EASY, MEDIUM, HARD).
+     * @return The target number of given cells.
+     */
+    public static int getRatedTargetClues(SudokuUtilities.SudokuLevel level) {
+        return level == SudokuUtilities.SudokuLevel.MEDIUM ? 28 : getTargetClues(level);
+    }
+
+    /**
+     * Gets the easiest technique a puzzle for a difficulty level must need.
+     * The technique ranges of the levels do not overlap, so every rating belongs to exactly one level.
+     *
+     * @param level The difficulty level (EASY, MEDIUM, HARD).
+     * @return The minimum hardest technique.
+     */
+    public static HumanSolver.Technique getMinTechnique(SudokuUtilities.SudokuLevel level) {
+        switch (level) {
+            case EASY: return HumanSolver.Technique.HIDDEN_SINGLE;
+            case HARD: return HumanSolver.Technique.X_WING;
+            default: return HumanSolver.Technique.LOCKED_CANDIDATES;
+        }
+    }
+
+    /**
+     * Gets the hardest technique a puzzle for a difficulty level may need.
+     * HARD is open-ended on purpose: it includes BACKTRACKING, so puzzles the technique ladder cannot finish
+     * count as HARD, and most HARD puzzles are of that kind. Their Rating still tells them apart by score.
+     *
+     * @param level The difficulty level (EASY, MEDIUM, HARD).
+     * @return The maximum hardest technique.
+     */
+    public static HumanSolver.Technique getMaxTechnique(SudokuUtilities.SudokuLevel level) {
+        switch (level) {
+            case EASY: return HumanSolver.Technique.NAKED_SINGLE;
+            case HARD: return HumanSolver.Technique.BACKTRACKING;
+            default: return HumanSolver.Technique.HIDDEN_PAIR;
+        }
+    }
+
+    /**
+     * Generates a puzzle for a difficulty level as a 3-dimensional matrix, without rating it.
+     *
+     * @param level The level of difficulty (EASY, MEDIUM, HARD).
+     * @return A 3-dimensional int matrix: [row][col][0] for initial values, [row][col][1] for solution values.
+     */
+    public int[][][] generateMatrix(SudokuUtilities.SudokuLevel level) {
+        int[] puzzle = new int[CELL_COUNT];
+        int[] solution = new int[CELL_COUNT];
+        generate(level, puzzle, solution);
+        return SudokuUtilities.toMatrix(puzzle, solution);
+    }
+
+    /**
+     * Generates a puzzle rated for a difficulty level as a 3-dimensional matrix.
+     *
+     * @param level The level of difficulty (EASY, MEDIUM, HARD).
+     * @return A 3-dimensional int matrix: [row][col][0] for initial values, [row][col][1] for solution values.
+     */
+    public int[][][] generateRatedMatrix(SudokuUtilities.SudokuLevel level) {
+        int[] puzzle = new int[CELL_COUNT];
+        int[] solution = new int[CELL_COUNT];
+        generateRated(level, puzzle, solution);
+        return SudokuUtilities.toMatrix(puzzle, solution);
+    }
+
+    /**
+     * Generates a puzzle with a unique solution for a difficulty level, by clue count only.
+     *
+     * @param level    The level of difficulty (EASY, MEDIUM, HARD).
+     * @param puzzle   An array of 81 elements that receives the initial values (0 for empty cells).
+     * @param solution An array of 81 elements that receives the solution.
+     * @return The number of clues in the generated puzzle. This can be higher than the target
+     *         if no further clue could be removed without losing uniqueness.
+     */
+    public int generate(SudokuUtilities.SudokuLevel level, int[] puzzle, int[] solution) {
+        SudokuGenerationEvent event = new SudokuGenerationEvent();
+        event.begin();
+        long start = SudokuMetrics.startTimer();
+        generateSolution(solution);
+        System.arraycopy(solution, 0, puzzle, 0, CELL_COUNT);
+        int clues = removeClues(puzzle, getTargetClues(level));
+        recordGeneration(level, event, start, clues, getTargetClues(level));
+        return clues;
+    }
+
+    /**
+     * Generates a puzzle with a unique solution whose hardest needed technique matches a difficulty level.
+     * Up to MAX_RATING_ATTEMPTS puzzles are generated and rated; if none matches, the last one is kept.
+     *
+     * @param level    The level of difficulty (EASY, MEDIUM, HARD).
+     * @param puzzle   An array of 81 elements that receives the initial values (0 for empty cells).
+     * @param solution An array of 81 elements that receives the solution.
+     * @return The rating of the generated puzzle.
+     */
+    public HumanSolver.Rating generateRated(SudokuUtilities.SudokuLevel level, int[] puzzle, int[] solution) {
+        SudokuGenerationEvent event = new SudokuGenerationEvent();
+        event.begin();
+        long start = SudokuMetrics.startTimer();
+        HumanSolver.Rating rating = generateRated(getMinTechnique(level), getMaxTechnique(level),
+                getRatedTargetClues(level), puzzle, solution, MAX_RATING_ATTEMPTS);
+        recordGeneration(level, event, start, countClues(puzzle), getRatedTargetClues(level));
+        return rating;
+    }
+
+    private static void recordGeneration(SudokuUtilities.SudokuLevel level, SudokuGenerationEvent event, long start,
+                                         int clues, int targetClues) {
+        SudokuMetrics.GENERATION_TIME[level.ordinal()].recordSince(start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.level = level.name();
+            event.clues = clues;
+            event.targetClues = targetClues;
+            event.commit();
+        }
+    }
+
+    /**
+     * Generates a puzzle whose hardest needed technique lies within a range.
+     * If no puzzle within the range is found in maxAttempts tries, the last puzzle tried is kept.
+     *
+     * @param minTechnique The easiest technique the puzzle must need.
+     * @param maxTechnique The hardest technique the puzzle may need.
+     * @param targetClues  The number of clues to remove down to.
+     * @param puzzle       An array of 81 elements that receives the initial values (0 for empty cells).
+     * @param solution     An array of 81 elements that receives the solution.
+     * @param maxAttempts  The maximum number of puzzles to generate and rate.
+     * @return The rating of the puzzle left in puzzle, which is outside the range only if every attempt failed.
+     */
+    public HumanSolver.Rating generateRated(HumanSolver.Technique minTechnique, HumanSolver.Technique maxTechnique,
+                                            int targetClues, int[] puzzle, int[] solution, int maxAttempts) {
+        HumanSolver.Rating rating = null;
+        for (int attempt = 0; attempt < Math.max(1, maxAttempts); attempt++) {
+            generateSolution(solution);
+            System.arraycopy(solution, 0, puzzle, 0, CELL_COUNT);
+            removeClues(puzzle, targetClues);
+            rating = rater.rate(puzzle);
+            HumanSolver.Technique hardest = rating.getHardest();
+            if (hardest.compareTo(minTechnique) >= 0 && hardest.compareTo(maxTechnique) <= 0) {
+                break;
+            }
+        }
+        return rating;
+    }
+
+    /**
+     * Rates a puzzle by the human techniques needed to solve it.
+     *
+     * @param puzzle 81 cell values in row-major order, 0 for empty cells. Not modified.
+     * @return The rating of the puzzle.
+     */
+    public HumanSolver.Rating rate(int[] puzzle) {
+        return rater.rate(puzzle);
+    }
+
+    /**
+     * Generates a random, completely filled and valid grid.
+     *
+     * @param solution An array of 81 elements that receives the grid.
+     */
+    public void generateSolution(int[] solution) {
+        // The three diagonal boxes do not share any row or column, so they can be filled
+        // with independent random permutations before the solver completes the grid
+        for (int i = 0; i < CELL_COUNT; i++) {
+            solution[i] = 0;
+        }
+        for (int box = 0; box < SudokuUtilities.SECTIONS_PER_ROW; box++) {
+            shuffle(digits, GRID_SIZE);
+            int origin = box * SudokuUtilities.SECTION_SIZE * (GRID_SIZE + 1);
+            for (int i = 0; i < GRID_SIZE; i++) {
+                solution[origin + (i / 3) * GRID_SIZE + i % 3] = digits[i];
+            }
+        }
+        solver.solve(solution);
+    }
+
+    /**
+     * Removes clues in random order while the puzzle keeps a unique solution.
+     *
+     * @param puzzle     A puzzle with a unique solution, modified in place.
+     * @param targetClues The number of clues to stop at.
+     * @return The number of clues left.
+     */
+    public int removeClues(int[] puzzle, int targetClues) {
+        int clues = countClues(puzzle);
+        shuffle(order, CELL_COUNT);
+        for (int i = 0; i < CELL_COUNT && clues > targetClues; i++) {
+            int cell = order[i];
+            int value = puzzle[cell];
+            if (value == 0) {
+                continue;
+            }
+            puzzle[cell] = 0;
+            if (solver.countSolutions(puzzle, 2) == 1) {
+                clues--;
+            } else {
+                puzzle[cell] = value;  // Removing this clue would allow several solutions
+            }
+        }
+        return clues;
+    }
+
+    /**
+     * Gets the number of search nodes visited by the last uniqueness check or grid fill.
+     *
+     * @return The number of visited nodes.
+     */
+    public long getNodesVisited() {
+        return solver.getNodesVisited();
+    }
+
+    private static int countClues(int[] puzzle) {
+        int clues = 0;
+        for (int i = 0; i < CELL_COUNT; i++) {
+            if (puzzle[i] != 0) {
+                clues++;
+            }
+        }
+        return clues;
+    }
+
+    private void shuffle(int[] values, int length) {
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.kth25.demo.model;
+
+
+import com.kth25.demo.metrics.SudokuMetrics;
+import com.kth25.demo.model.solver.HumanSolver;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.kth25.demo.model.SudokuBoard.CELL_COUNT;
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * Finds the next logical step for the player: the cell that can be filled with the easiest technique,
+ * and the technique that deduces it. The givens and the correct entries of the board are loaded into a
+ * HumanSolver, whose candidate masks are cached between hints: candidates removed while looking for one
+ * hint stay removed for the next, and placing the suggested digit keeps the cache valid. Any other change
+ * to the board reloads the candidates on the next request, which is a single pass over the cells.
+ * Wrong entries are treated as empty, so the next step may be to correct one of them.
+ */
+public class SudokuHintEngine implements SudokuBoardListener {
+    private final SudokuBoard board;
+    private final HumanSolver solver = new HumanSolver();
+    private final int[] cells = new int[CELL_COUNT];
+    private boolean loaded;  // The solver's candidates match the board
+    private Hint pending;    // The last hint, already placed in the solver but not yet on the board
+
+    /**
+     * A suggested placement and the technique that deduces it.
+     */
+    public static final class Hint {
+        private final int cell;
+        private final int digit;
+        private final HumanSolver.Technique technique;
+
+        Hint(int cell, int digit, HumanSolver.Technique technique) {
+            this.cell = cell;
+            this.digit = digit;
+            this.technique = technique;
+        }
+
+        /**
+         * Gets the row of the cell to fill.
+         *
+         * @return The row index.
+         */
+        public int getRow() {
+            return cell / GRID_SIZE;
+        }
+
+        /**
+         * Gets the column of the cell to fill.
+         *
+         * @return The column index.
+         */
+        public int getCol() {
+            return cell % GRID_SIZE;
+        }
+
+        /**
+         * Gets the digit that belongs in the cell.
+         *
+         * @return The digit (1-9).
+         */
+        public int getDigit() {
+            return digit;
+        }
+
+        /**
+         * Gets the hardest technique needed to deduce the digit. BACKTRACKING means no technique
+         * applies and the digit was taken from the solution.
+         *
+         * @return The technique.
+         */
+        public HumanSolver.Technique getTechnique() {
+            return technique;
+        }
+    }
+
+    /**
+     * Constructs a hint engine for a board and starts listening to its changes.
+     *
+     * @param board The board hints are given for.
+     */
+    public SudokuHintEngine(SudokuBoard board) {
+        this.board = board;
+        board.addListener(this);
+    }
+
+    /**
+     * Finds the next logical step. Asking again before the board changes returns the same hint.
+     *
+     * @return The hint, or null if the board is solved.
+     */
+    public Hint nextLogicalStep() {
+        if (board.isComplete()) {
+            return null;
+        }
+        if (pending != null) {
+            return pending;
+        }
+        long start = SudokuMetrics.startTimer();
+        if (!loaded) {
+            for (int cell = 0; cell < CELL_COUNT; cell++) {
+                cells[cell] = board.isCellCorrect(cell) ? board.getCellValue(cell) : 0;  // Wrong entries count as empty
+            }
+            solver.load(cells);
+            loaded = true;
+        }
+        HumanSolver.Technique hardest = HumanSolver.Technique.HIDDEN_SINGLE;
+        HumanSolver.Technique technique;
+        while ((technique = solver.step()) != null) {
+            if (technique.compareTo(hardest) > 0) {
+                hardest = technique;
+            }
+            if (solver.getLastCell() >= 0) {
+                pending = new Hint(solver.getLastCell(), solver.getLastDigit(), hardest);
+                SudokuMetrics.HINT_TIME.recordSince(start);
+                return pending;
+            }
+        }
+        // No technique applies: reveal a cell from the solution, as the random hint does
+        int cell = board.pickEmptyCell(ThreadLocalRandom.current());
+        for (int other = 0; cell < 0 && other < CELL_COUNT; other++) {
+            if (!board.isCellCorrect(other)) {
+                cell = other;  // Only wrong entries are left
+            }
+        }
+        SudokuMetrics.HINT_TIME.recordSince(start);
+        return new Hint(cell, board.getCellCorrectValue(cell), HumanSolver.Technique.BACKTRACKING);
+    }
+
+    @Override
+    public void cellChanged(int row, int col) {
+        int cell = row * GRID_SIZE + col;
+        if (pending != null && pending.cell == cell && board.getCellValue(cell) == pending.digit) {
+            pending = null;  // The player followed the hint; the solver already has this digit
+        } else {
+            loaded = false;
+            pending = null;
+        }
+    }
+
+    @Override
+    public void boardChanged() {
+        loaded = false;
+        pending = null;
+    }
+}
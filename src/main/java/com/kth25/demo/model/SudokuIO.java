@@ -1,11 +1,52 @@
 package com.kth25.demo.model;
 
-import java.io.*;
+import com.kth25.demo.metrics.SudokuLoadEvent;
+import com.kth25.demo.metrics.SudokuMetrics;
+import com.kth25.demo.metrics.SudokuSaveEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.kth25.demo.model.SudokuBoard.CELL_COUNT;
 
 /**
  * Class for handling input and output operations for Sudoku boards, including saving and loading boards to/from files.
+ * A board is saved in a compact binary format of SAVE_SIZE bytes (big-endian):
+ * <pre>
+ *   int    magic        "SDKB"
+ *   short  version      1
+ *   byte   values[41]   current value of each cell, one 4-bit nibble per cell, even cells in the low nibble
+ *   byte   solution[41] correct value of each cell, packed the same way
+ *   byte   givens[11]   bitmap of the given cells, cell i in bit i % 8 of byte i / 8
+ *   int    checksum     Adler-32 of all preceding bytes
+ * </pre>
+ * A save may be followed by the move journal of the game:
+ * <pre>
+ *   int    magic        "SDKJ"
+ *   short  version      1
+ *   int    count        number of moves
+ *   int    position     number of moves applied to the board
+ *   short  moves[count] packed moves as in SudokuMoveJournal
+ *   int    checksum     Adler-32 of the preceding bytes of this record
+ * </pre>
+ * The encoder and decoder work on a caller-supplied ByteBuffer and never allocate, except that checking
+ * a journal against its board uses a scratch copy of the 81 cell values.
  */
 public class SudokuIO {
+    public static final int MAGIC = 0x53444B42;  // "SDKB"
+    public static final short VERSION = 1;
+    private static final int NIBBLE_BYTES = (CELL_COUNT + 1) / 2;
+    private static final int BITMAP_BYTES = (CELL_COUNT + 7) / 8;
+    private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES;
+    private static final int PAYLOAD_SIZE = HEADER_SIZE + 2 * NIBBLE_BYTES + BITMAP_BYTES;
+    /** The size in bytes of an encoded board */
+    public static final int SAVE_SIZE = PAYLOAD_SIZE + Integer.BYTES;
+    public static final int JOURNAL_MAGIC = 0x53444B4A;  // "SDKJ"
+    private static final int JOURNAL_HEADER_SIZE = HEADER_SIZE + 2 * Integer.BYTES;
+    private static final int ADLER_MODULUS = 65521;
 
     /**
      * Saves a SudokuBoard object to a file.
@@ -15,12 +56,45 @@ public class SudokuIO {
      * @throws IOException If an I/O error occurs while saving the board.
      */
     public static void saveSudokuBoard(SudokuBoard board, String filePath) throws IOException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filePath))) {
-            oos.writeObject(board);
+        saveSudokuGame(board, null, filePath);
+    }
+
+    /**
+     * Saves a SudokuBoard object and its move journal to a file. The journal record follows the board record.
+     *
+     * @param board    The SudokuBoard object to be saved.
+     * @param journal  The moves made on the board, or null to save the board only.
+     * @param filePath The path of the file where the game will be saved.
+     * @throws IOException If an I/O error occurs while saving the game.
+     */
+    public static void saveSudokuGame(SudokuBoard board, SudokuMoveJournal journal, String filePath) throws IOException {
+        SudokuSaveEvent event = new SudokuSaveEvent();
+        event.begin();
+        long start = SudokuMetrics.startTimer();
+        ByteBuffer buffer = ByteBuffer.allocate(SAVE_SIZE + (journal == null ? 0 : journalSize(journal)));
+        encode(board, buffer);
+        if (journal != null) {
+            encode(journal, buffer);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
         } catch (IOException e) {
             System.err.println("Error saving Sudoku board: " + e.getMessage());
             throw e;
         }
+        SudokuMetrics.SAVE_TIME.recordSince(start);
+        SudokuMetrics.SAVE_BYTES.add(buffer.limit());
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = filePath;
+            event.bytes = buffer.limit();
+            event.moves = journal == null ? 0 : journal.size();
+            event.commit();
+        }
     }
 
     /**
@@ -28,16 +102,272 @@ public class SudokuIO {
      *
      * @param filePath The path of the file from which to load the Sudoku board.
      * @return The loaded SudokuBoard object.
-     * @throws IOException If an I/O error occurs while reading the file.
-     * @throws ClassNotFoundException If the class of the serialized object cannot be found.
+     * @throws IOException If an I/O error occurs while reading the file, or the file is not a valid save.
+     */
+    public static SudokuBoard loadSudokuBoard(String filePath) throws IOException {
+        return loadSudokuGame(filePath, null);
+    }
+
+    /**
+     * Loads a SudokuBoard object and its move journal from a file.
+     *
+     * @param filePath The path of the file from which to load the game.
+     * @param journal  The journal that receives the saved moves, or null to ignore them.
+     *                 It is cleared if the file has no journal.
+     * @return The loaded SudokuBoard object.
+     * @throws IOException If an I/O error occurs while reading the file, or the file is not a valid save.
      */
-    public static SudokuBoard loadSudokuBoard(String filePath) throws IOException, ClassNotFoundException {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filePath))) {
-            return (SudokuBoard) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
+    public static SudokuBoard loadSudokuGame(String filePath, SudokuMoveJournal journal) throws IOException {
+        SudokuLoadEvent event = new SudokuLoadEvent();
+        event.begin();
+        long start = SudokuMetrics.startTimer();
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < SAVE_SIZE || size > Integer.MAX_VALUE) throw new IOException("not a Sudoku save file, size " + size);
+            ByteBuffer buffer = ByteBuffer.allocate(journal == null ? SAVE_SIZE : (int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) throw new IOException("unexpected end of file");
+            }
+            buffer.flip();
+            SudokuBoard board = new SudokuBoard();
+            decode(buffer, board);
+            if (journal != null) {
+                if (buffer.hasRemaining()) {
+                    decode(buffer, journal, board);
+                } else {
+                    journal.clear();  // Saved without a journal
+                }
+            }
+            SudokuMetrics.LOAD_TIME.recordSince(start);
+            SudokuMetrics.LOAD_BYTES.add(buffer.limit());
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = filePath;
+                event.bytes = buffer.limit();
+                event.moves = journal == null ? 0 : journal.size();
+                event.commit();
+            }
+            return board;
+        } catch (IOException e) {
             System.err.println("Error loading Sudoku board: " + e.getMessage());
             throw e;
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Writes a board at the buffer's position and advances the position by SAVE_SIZE.
+     *
+     * @param board  The board to encode.
+     * @param buffer The buffer to write to, with at least SAVE_SIZE bytes remaining.
+     */
+    public static void encode(SudokuBoard board, ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        for (int i = 0; i < NIBBLE_BYTES; i++) {
+            buffer.put((byte) (nibble(board, 2 * i, false) | nibble(board, 2 * i + 1, false) << 4));
+        }
+        for (int i = 0; i < NIBBLE_BYTES; i++) {
+            buffer.put((byte) (nibble(board, 2 * i, true) | nibble(board, 2 * i + 1, true) << 4));
+        }
+        for (int i = 0; i < BITMAP_BYTES; i++) {
+            int bits = 0;
+            for (int bit = 0; bit < 8 && i * 8 + bit < CELL_COUNT; bit++) {
+                if (!board.isCellEditable(i * 8 + bit)) {
+                    bits |= 1 << bit;
+                }
+            }
+            buffer.put((byte) bits);
+        }
+        buffer.putInt(checksum(buffer, start, PAYLOAD_SIZE));
+    }
+
+    /**
+     * Reads a board at the buffer's position and advances the position by SAVE_SIZE.
+     * The whole record is checked before the board is touched, so a corrupt record leaves the board unchanged.
+     *
+     * @param buffer The buffer to read from, with at least SAVE_SIZE bytes remaining.
+     * @param board  The board that receives the decoded state.
+     * @throws IOException If the record has a wrong magic number, version or checksum, or invalid cell values.
+     */
+    public static void decode(ByteBuffer buffer, SudokuBoard board) throws IOException {
+        int start = buffer.position();
+        if (buffer.remaining() < SAVE_SIZE) throw new IOException("truncated save, " + buffer.remaining() + " bytes");
+        int magic = buffer.getInt(start);
+        if (magic != MAGIC) throw new IOException("not a Sudoku save file, magic " + Integer.toHexString(magic));
+        short version = buffer.getShort(start + Integer.BYTES);
+        if (version != VERSION) throw new IOException("unsupported save version " + version);
+        int stored = buffer.getInt(start + PAYLOAD_SIZE);
+        if (stored != checksum(buffer, start, PAYLOAD_SIZE)) throw new IOException("save file checksum mismatch");
+
+        int values = start + HEADER_SIZE;
+        int solution = values + NIBBLE_BYTES;
+        int givens = solution + NIBBLE_BYTES;
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int value = readNibble(buffer, values, cell);
+            int correctValue = readNibble(buffer, solution, cell);
+            boolean isGiven = readBit(buffer, givens, cell);
+            if (value > SudokuBoard.GRID_SIZE || correctValue > SudokuBoard.GRID_SIZE
+                    || (isGiven && value != correctValue)) {
+                throw new IOException("invalid cell " + cell + " in save file");
+            }
+        }
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            boolean isGiven = readBit(buffer, givens, cell);
+            board.setCellState(cell, readNibble(buffer, values, cell), readNibble(buffer, solution, cell), isGiven);
+        }
+        board.cellsReplaced();
+        buffer.position(start + SAVE_SIZE);
+    }
+
+    /**
+     * Gets the encoded size of a move journal.
+     *
+     * @param journal The journal.
+     * @return The number of bytes encode writes for it.
+     */
+    public static int journalSize(SudokuMoveJournal journal) {
+        return JOURNAL_HEADER_SIZE + journal.size() * Short.BYTES + Integer.BYTES;
+    }
+
+    /**
+     * Writes a move journal at the buffer's position and advances the position by journalSize(journal).
+     *
+     * @param journal The journal to encode.
+     * @param buffer  The buffer to write to, with at least journalSize(journal) bytes remaining.
+     */
+    public static void encode(SudokuMoveJournal journal, ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putInt(JOURNAL_MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putInt(journal.size());
+        buffer.putInt(journal.getPosition());
+        for (int i = 0; i < journal.size(); i++) {
+            buffer.putShort((short) journal.getMove(i));
+        }
+        buffer.putInt(checksum(buffer, start, buffer.position() - start));
+    }
+
+    /**
+     * Reads a move journal at the buffer's position and advances the position past it.
+     * The whole record is checked before the journal is touched, so a corrupt record leaves it unchanged.
+     *
+     * @param buffer  The buffer to read from.
+     * @param journal The journal that receives the decoded moves, replacing its current moves.
+     * @throws IOException If the record is truncated or has a wrong magic number, version, checksum or move.
+     */
+    public static void decode(ByteBuffer buffer, SudokuMoveJournal journal) throws IOException {
+        decode(buffer, journal, null);
+    }
+
+    /**
+     * Reads the move journal saved with a board and checks it against that board before the journal is touched.
+     * Undoing the applied moves and redoing the undone ones from the board must only change editable cells,
+     * and every move must find its cell holding the value it expects, so undo and redo can never corrupt the board.
+     *
+     * @param buffer  The buffer to read from.
+     * @param journal The journal that receives the decoded moves, replacing its current moves.
+     * @param board   The board decoded from the same save, or null to skip the check. Not modified.
+     * @throws IOException If the record is corrupt or its moves do not match the board.
+     */
+    public static void decode(ByteBuffer buffer, SudokuMoveJournal journal, SudokuBoard board) throws IOException {
+        int start = buffer.position();
+        if (buffer.remaining() < JOURNAL_HEADER_SIZE + Integer.BYTES) throw new IOException("truncated journal");
+        int magic = buffer.getInt(start);
+        if (magic != JOURNAL_MAGIC) throw new IOException("not a move journal, magic " + Integer.toHexString(magic));
+        short version = buffer.getShort(start + Integer.BYTES);
+        if (version != VERSION) throw new IOException("unsupported journal version " + version);
+        int count = buffer.getInt(start + HEADER_SIZE);
+        int position = buffer.getInt(start + HEADER_SIZE + Integer.BYTES);
+        if (count < 0 || (long) count * Short.BYTES > buffer.remaining() - JOURNAL_HEADER_SIZE - Integer.BYTES) {
+            throw new IOException("truncated journal, " + count + " moves");
+        }
+        if (position < 0 || position > count) throw new IOException("invalid journal position " + position);
+        int moves = start + JOURNAL_HEADER_SIZE;
+        int length = JOURNAL_HEADER_SIZE + count * Short.BYTES;
+        if (buffer.getInt(start + length) != checksum(buffer, start, length)) throw new IOException("journal checksum mismatch");
+
+        for (int i = 0; i < count; i++) {
+            int move = buffer.getShort(moves + i * Short.BYTES) & 0xFFFF;
+            int oldValue = (move >> SudokuMoveJournal.OLD_SHIFT) & 0xF;
+            int newValue = (move >> SudokuMoveJournal.NEW_SHIFT) & 0xF;
+            if ((move & SudokuMoveJournal.CELL_MASK) >= CELL_COUNT || oldValue > SudokuBoard.GRID_SIZE
+                    || newValue > SudokuBoard.GRID_SIZE || (i == 0 && (move & SudokuMoveJournal.LINKED_FLAG) != 0)) {
+                throw new IOException("invalid move " + i + " in journal");
+            }
+        }
+        if (position < count && (buffer.getShort(moves + position * Short.BYTES) & SudokuMoveJournal.LINKED_FLAG) != 0) {
+            throw new IOException("journal position " + position + " splits a linked step");
+        }
+        if (board != null) {
+            checkJournal(buffer, moves, count, position, board);
+        }
+        journal.clear();
+        for (int i = 0; i < count; i++) {
+            journal.appendPacked(buffer.getShort(moves + i * Short.BYTES) & 0xFFFF);
+        }
+        journal.setPosition(position);
+        buffer.position(start + length + Integer.BYTES);
+    }
+
+    /**
+     * Checks journal moves against the board they were saved with, by undoing the applied moves and redoing
+     * the undone ones on a copy of its cell values.
+     */
+    private static void checkJournal(ByteBuffer buffer, int moves, int count, int position, SudokuBoard board)
+            throws IOException {
+        int[] values = new int[CELL_COUNT];
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            values[cell] = board.getCellValue(cell);
+        }
+        for (int i = position - 1; i >= 0; i--) {  // Undo: each cell must hold the value the move left
+            int move = buffer.getShort(moves + i * Short.BYTES) & 0xFFFF;
+            int cell = move & SudokuMoveJournal.CELL_MASK;
+            if (!board.isCellEditable(cell) || values[cell] != ((move >> SudokuMoveJournal.NEW_SHIFT) & 0xF)) {
+                throw new IOException("journal move " + i + " does not match the board");
+            }
+            values[cell] = (move >> SudokuMoveJournal.OLD_SHIFT) & 0xF;
+        }
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            values[cell] = board.getCellValue(cell);
+        }
+        for (int i = position; i < count; i++) {  // Redo: each cell must hold the value the move replaces
+            int move = buffer.getShort(moves + i * Short.BYTES) & 0xFFFF;
+            int cell = move & SudokuMoveJournal.CELL_MASK;
+            if (!board.isCellEditable(cell) || values[cell] != ((move >> SudokuMoveJournal.OLD_SHIFT) & 0xF)) {
+                throw new IOException("journal move " + i + " does not match the board");
+            }
+            values[cell] = (move >> SudokuMoveJournal.NEW_SHIFT) & 0xF;
+        }
+    }
+
+    // The high nibble of the last byte has no cell and is written as 0
+    private static int nibble(SudokuBoard board, int cell, boolean correct) {
+        if (cell >= CELL_COUNT) {
+            return 0;
+        }
+        return correct ? board.getCellCorrectValue(cell) : board.getCellValue(cell);
+    }
+
+    private static int readNibble(ByteBuffer buffer, int offset, int cell) {
+        int packed = buffer.get(offset + cell / 2);
+        return (cell % 2 == 0 ? packed : packed >> 4) & 0xF;
+    }
+
+    private static boolean readBit(ByteBuffer buffer, int offset, int cell) {
+        return (buffer.get(offset + cell / 8) & (1 << (cell % 8))) != 0;
+    }
+
+    /**
+     * Computes the Adler-32 checksum of a buffer range without changing the buffer's position.
+     */
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        int a = 1;
+        int b = 0;
+        for (int i = offset; i < offset + length; i++) {
+            a = (a + (buffer.get(i) & 0xFF)) % ADLER_MODULUS;
+            b = (b + a) % ADLER_MODULUS;
+        }
+        return (b << 16) | a;
+    }
+}
@@ -0,0 +1,131 @@
+package com.kth25.demo.model;
+
+
+import static com.kth25.demo.model.SudokuBoard.CELL_COUNT;
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * Packing of moves and move results into plain ints, for SudokuBoard.applyMove.
+ * A move is cell | digit &lt;&lt; 7.
+ * A result is status | old value &lt;&lt; 8, so the caller can journal the move
+ * without reading the board again. Nothing here allocates.
+ */
+public final class SudokuMove {
+    /** The value was entered and agrees with its row, column and box */
+    public static final int ACCEPTED = 0;
+    /** The value was entered but occurs elsewhere in the cell's row, column or box */
+    public static final int CONFLICTING = 1;
+    /** The value was entered, has no visible conflict, but is not the solution */
+    public static final int WRONG = 2;
+    /** The value was entered and the board is now solved */
+    public static final int COMPLETED = 3;
+    /** Nothing changed: the cell is a given or the move is out of range */
+    public static final int REJECTED = 4;
+
+    private static final int CELL_MASK = 0x7F;      // Move bits 0-6: cell index
+    private static final int DIGIT_SHIFT = 7;       // Move bits 7-10: digit, 0 clears the cell
+    private static final int STATUS_MASK = 0xFF;    // Result bits 0-7: status
+    private static final int RESULT_OLD_SHIFT = 8;  // Result bits 8-11: value before the move
+    private static final int VALUE_MASK = 0xF;
+
+    private SudokuMove() {
+    }
+
+    /**
+     * Packs a move.
+     *
+     * @param row   The row index of the cell.
+     * @param col   The column index of the cell.
+     * @param digit The digit to enter, 0 to clear the cell.
+     * @return The packed move.
+     * @throws IllegalArgumentException If row, col or digit is out of range.
+     */
+    public static int of(int row, int col, int digit) {
+        if (row < 0 || row >= GRID_SIZE) throw new IllegalArgumentException("row " + row);
+        if (col < 0 || col >= GRID_SIZE) throw new IllegalArgumentException("col " + col);
+        if (digit < 0 || digit > GRID_SIZE) throw new IllegalArgumentException("digit " + digit);
+        return row * GRID_SIZE + col | digit << DIGIT_SHIFT;
+    }
+
+    /**
+     * Gets the cell of a packed move.
+     *
+     * @param move The packed move.
+     * @return The cell index (row * 9 + col).
+     */
+    public static int cell(int move) {
+        return move & CELL_MASK;
+    }
+
+    /**
+     * Gets the digit of a packed move.
+     *
+     * @param move The packed move.
+     * @return The digit, 0 for clearing the cell.
+     */
+    public static int digit(int move) {
+        return (move >>> DIGIT_SHIFT) & VALUE_MASK;
+    }
+
+    /**
+     * Checks that a packed move addresses a cell and holds a digit from 0 to 9.
+     *
+     * @param move The packed move.
+     * @return True if the move is in range.
+     */
+    public static boolean isValid(int move) {
+        return (move & ~(CELL_MASK | VALUE_MASK << DIGIT_SHIFT)) == 0 && cell(move) < CELL_COUNT && digit(move) <= GRID_SIZE;
+    }
+
+    /**
+     * Gets the status of a packed result.
+     *
+     * @param result The result returned by SudokuBoard.applyMove.
+     * @return ACCEPTED, CONFLICTING, WRONG, COMPLETED or REJECTED.
+     */
+    public static int status(int result) {
+        return result & STATUS_MASK;
+    }
+
+    /**
+     * Gets the value the cell had before the move.
+     *
+     * @param result The result returned by SudokuBoard.applyMove.
+     * @return The old value, 0 for an empty cell.
+     */
+    public static int oldValue(int result) {
+        return (result >>> RESULT_OLD_SHIFT) & VALUE_MASK;
+    }
+
+    /**
+     * Checks if the move changed the board.
+     *
+     * @param result The result returned by SudokuBoard.applyMove.
+     * @param move   The packed move that was applied.
+     * @return False if the move was rejected or the cell already had the digit.
+     */
+    public static boolean changed(int result, int move) {
+        return status(result) != REJECTED && oldValue(result) != digit(move);
+    }
+
+    /**
+     * Gets the name of a status, for logs and JSON.
+     *
+     * @param status A status from status().
+     * @return The lowercase status name.
+     */
+    public static String statusName(int status) {
+        switch (status) {
+            case ACCEPTED: return "accepted";
+            case CONFLICTING: return "conflicting";
+            case WRONG: return "wrong";
+            case COMPLETED: return "completed";
+            case REJECTED: return "rejected";
+            default: throw new IllegalArgumentException("status " + status);
+        }
+    }
+
+    static int result(int status, int oldValue) {
+        return status | oldValue << RESULT_OLD_SHIFT;
+    }
+}
@@ -0,0 +1,222 @@
+package com.kth25.demo.model;
+
+
+import java.util.Arrays;
+
+import static com.kth25.demo.model.SudokuBoard.CELL_COUNT;
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * Append-only journal of the moves made on a board, supporting unlimited undo and redo,
+ * jumping to any point of the game and replaying it from the start.
+ * Every move is packed into one int (cell index, old value, new value and a link flag), so a move costs
+ * 4 bytes in memory and 2 bytes on disk, and recording one does not allocate except when the journal grows.
+ * A move can be linked to the move before it; undo and redo then treat the linked moves as one step,
+ * which is used for operations that change several cells at once.
+ * Moves after the current position are the redo history and are dropped when a new move is recorded.
+ */
+public class SudokuMoveJournal {
+    static final int CELL_MASK = 0x7F;         // Bits 0-6: cell index
+    static final int OLD_SHIFT = 7;            // Bits 7-10: value before the move
+    static final int NEW_SHIFT = 11;           // Bits 11-14: value after the move
+    static final int LINKED_FLAG = 1 << 15;    // Bit 15: undone and redone together with the previous move
+    private static final int VALUE_MASK = 0xF;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private int[] moves = new int[INITIAL_CAPACITY];
+    private int size;      // Moves recorded
+    private int position;  // Moves currently applied to the board
+
+    /**
+     * Records a move that was just made on the board. Any redo history is dropped.
+     *
+     * @param cell     The index of the changed cell (row * 9 + col).
+     * @param oldValue The value of the cell before the move.
+     * @param newValue The value of the cell after the move.
+     * @param linked   True to undo and redo this move together with the previous one.
+     * @throws IllegalArgumentException If the cell or a value is out of range.
+     */
+    public void record(int cell, int oldValue, int newValue, boolean linked) {
+        if (cell < 0 || cell >= CELL_COUNT) throw new IllegalArgumentException("cell " + cell);
+        if (oldValue < 0 || oldValue > GRID_SIZE) throw new IllegalArgumentException("value " + oldValue);
+        if (newValue < 0 || newValue > GRID_SIZE) throw new IllegalArgumentException("value " + newValue);
+        size = position;  // Drop the redo history
+        append(cell | oldValue << OLD_SHIFT | newValue << NEW_SHIFT | (linked && position > 0 ? LINKED_FLAG : 0));
+        position = size;
+    }
+
+    /**
+     * Undoes the last applied step: the last move and any moves linked to it.
+     *
+     * @param board The board the moves were made on.
+     * @return True if a step was undone, false if there is nothing to undo.
+     */
+    public boolean undo(SudokuBoard board) {
+        if (position == 0) {
+            return false;
+        }
+        board.beginUpdate();
+        try {
+            int move;
+            do {
+                move = moves[--position];
+                board.setCellValue(move & CELL_MASK, (move >> OLD_SHIFT) & VALUE_MASK);
+            } while ((move & LINKED_FLAG) != 0);
+        } finally {
+            board.endUpdate();
+        }
+        return true;
+    }
+
+    /**
+     * Redoes the next undone step: the next move and any moves linked to it.
+     *
+     * @param board The board the moves were made on.
+     * @return True if a step was redone, false if there is nothing to redo.
+     */
+    public boolean redo(SudokuBoard board) {
+        if (position == size) {
+            return false;
+        }
+        board.beginUpdate();
+        try {
+            do {
+                int move = moves[position++];
+                board.setCellValue(move & CELL_MASK, (move >> NEW_SHIFT) & VALUE_MASK);
+            } while (position < size && (moves[position] & LINKED_FLAG) != 0);
+        } finally {
+            board.endUpdate();
+        }
+        return true;
+    }
+
+    /**
+     * Moves the board to the state after a given number of moves, undoing or redoing as needed.
+     * Linked moves are not split: a target inside a linked group moves to the end of the group.
+     * The board reports a single change.
+     *
+     * @param board  The board the moves were made on.
+     * @param target The number of moves to have applied, between 0 and size().
+     * @throws IllegalArgumentException If target is out of range.
+     */
+    public void jumpTo(SudokuBoard board, int target) {
+        if (target < 0 || target > size) throw new IllegalArgumentException("target " + target);
+        board.beginUpdate();
+        try {
+            while (position > target && undo(board)) {
+                // Undo step by step
+            }
+            while (position < target && redo(board)) {
+                // Redo step by step
+            }
+        } finally {
+            board.endUpdate();
+        }
+    }
+
+    /**
+     * Undoes every move, so the game can be replayed step by step with redo.
+     *
+     * @param board The board the moves were made on.
+     */
+    public void rewind(SudokuBoard board) {
+        jumpTo(board, 0);
+    }
+
+    /**
+     * Drops all moves, for example when a new game starts.
+     */
+    public void clear() {
+        size = 0;
+        position = 0;
+    }
+
+    /**
+     * Gets the number of recorded moves, undone ones included.
+     *
+     * @return The number of moves in the journal.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of moves currently applied to the board.
+     *
+     * @return The current position in the journal.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Checks if there is a step to undo.
+     *
+     * @return True if undo would change the board.
+     */
+    public boolean canUndo() {
+        return position > 0;
+    }
+
+    /**
+     * Checks if there is a step to redo.
+     *
+     * @return True if redo would change the board.
+     */
+    public boolean canRedo() {
+        return position < size;
+    }
+
+    /**
+     * Gets the cell changed by a move.
+     *
+     * @param index The index of the move in the journal.
+     * @return The cell index (row * 9 + col).
+     */
+    public int getCell(int index) {
+        return getMove(index) & CELL_MASK;
+    }
+
+    /**
+     * Gets the value a cell had before a move.
+     *
+     * @param index The index of the move in the journal.
+     * @return The old value, 0 for an empty cell.
+     */
+    public int getOldValue(int index) {
+        return (getMove(index) >> OLD_SHIFT) & VALUE_MASK;
+    }
+
+    /**
+     * Gets the value a cell got by a move.
+     *
+     * @param index The index of the move in the journal.
+     * @return The new value, 0 for an empty cell.
+     */
+    public int getNewValue(int index) {
+        return (getMove(index) >> NEW_SHIFT) & VALUE_MASK;
+    }
+
+    int getMove(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("index " + index + " of " + size);
+        return moves[index];
+    }
+
+    // Used by SudokuIO to restore a decoded journal after clear(); the moves are validated by the caller
+
+    void appendPacked(int move) {
+        append(move);
+        position = size;
+    }
+
+    void setPosition(int newPosition) {
+        position = newPosition;
+    }
+
+    private void append(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+}
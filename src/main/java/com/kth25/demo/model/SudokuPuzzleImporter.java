@@ -0,0 +1,414 @@
+package com.kth25.demo.model;
+
+
+import com.kth25.demo.model.solver.BitmaskSolver;
+import com.kth25.demo.model.solver.HumanSolver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+import static com.kth25.demo.model.SudokuBoard.CELL_COUNT;
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * Imports puzzles from plain text dumps into a puzzle library.
+ * The input has one puzzle per line: 81 characters in row-major order, digits for givens and '.' or '0'
+ * for empty cells. Anything after the 81st character that follows a space or tab is ignored, as are
+ * empty lines and lines starting with '#'.
+ * The file is read through a fixed-size buffer and parsed as bytes into fixed-size batches, so memory use
+ * does not depend on the file size. Each batch is checked in parallel: givens must not conflict and the
+ * puzzle must have exactly one solution. Survivors are solved, rated with a HumanSolver to pick their
+ * difficulty level, and written in input order, so the same input always gives the same library.
+ * If the writer deduplicates, survivors are also canonicalized and symmetric copies of earlier puzzles are
+ * rejected, keeping the first copy. Canonicalizing costs far more than checking and rating, making the import
+ * more than ten times slower, and memory grows with the library, so it is off unless asked for.
+ */
+public final class SudokuPuzzleImporter {
+    /** Enum for the reasons a line is rejected */
+    public enum Reject {
+        /** The line is not 81 puzzle characters */
+        MALFORMED,
+        /** The same digit is given twice in a row, column or box */
+        CONFLICTING_GIVENS,
+        /** The puzzle has no solution */
+        NO_SOLUTION,
+        /** The puzzle has more than one solution */
+        MULTIPLE_SOLUTIONS,
+        /** The puzzle is the same as an earlier puzzle up to symmetry */
+        DUPLICATE
+    }
+
+    /** Puzzles parsed before a batch is checked */
+    public static final int BATCH_SIZE = 4096;
+    /** Puzzles checked per fork/join leaf task */
+    private static final int LEAF_SIZE = 64;
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+    private static final int LEVEL_COUNT = SudokuUtilities.SudokuLevel.values().length;
+
+    private SudokuPuzzleImporter() {
+    }
+
+    /**
+     * Counters of an import, updated after every batch.
+     */
+    public static final class Stats {
+        private final long totalBytes;
+        private long bytesRead;
+        private long lines;
+        private final long[] imported = new long[LEVEL_COUNT];
+        private final long[] rejected = new long[Reject.values().length];
+
+        Stats(long totalBytes) {
+            this.totalBytes = totalBytes;
+        }
+
+        /**
+         * Gets the size of the input file.
+         *
+         * @return The input size in bytes.
+         */
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        /**
+         * Gets how much of the input has been read and checked.
+         *
+         * @return The number of bytes processed.
+         */
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        /**
+         * Gets the number of puzzle lines seen, rejected ones included.
+         *
+         * @return The number of lines.
+         */
+        public long getLines() {
+            return lines;
+        }
+
+        /**
+         * Gets the number of puzzles imported for a difficulty level.
+         *
+         * @param level The difficulty level (EASY, MEDIUM, HARD).
+         * @return The number of puzzles written under that level.
+         */
+        public long getImported(SudokuUtilities.SudokuLevel level) {
+            return imported[level.ordinal()];
+        }
+
+        /**
+         * Gets the total number of puzzles imported.
+         *
+         * @return The number of puzzles written.
+         */
+        public long getImported() {
+            long total = 0;
+            for (long count : imported) {
+                total += count;
+            }
+            return total;
+        }
+
+        /**
+         * Gets the number of lines rejected for a reason.
+         *
+         * @param reason The reject reason.
+         * @return The number of lines rejected for that reason.
+         */
+        public long getRejected(Reject reason) {
+            return rejected[reason.ordinal()];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(lines).append(" lines, ").append(getImported()).append(" imported (");
+            for (SudokuUtilities.SudokuLevel level : SudokuUtilities.SudokuLevel.values()) {
+                text.append(level).append(' ').append(imported[level.ordinal()]).append(level.ordinal() < LEVEL_COUNT - 1 ? ", " : ")");
+            }
+            for (Reject reason : Reject.values()) {
+                text.append(", ").append(reason).append(' ').append(rejected[reason.ordinal()]);
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * Imports every valid puzzle of a text dump into a library writer.
+     *
+     * @param source      The text file to read.
+     * @param target      The library writer that receives the puzzles that pass the checks.
+     *                    The caller finishes it once the import succeeded.
+     * @param parallelism The number of threads checking puzzles.
+     * @param progress    Called with the updated counters after every batch, or null.
+     * @return The final counters.
+     * @throws IOException If the file cannot be read or the library cannot be written.
+     * @throws IllegalArgumentException If parallelism is not positive.
+     */
+    public static Stats importPuzzles(Path source, SudokuPuzzleLibraryWriter target, int parallelism,
+                                      Consumer<Stats> progress) throws IOException {
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism " + parallelism);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            Stats stats = new Stats(channel.size());
+            Batch batch = new Batch();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+            int column = 0;             // Characters seen on the current line
+            boolean skip = false;       // The rest of the current line is ignored
+            boolean malformed = false;  // The current line is not a puzzle
+
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte ch = buffer.get();
+                    if (ch == '\n') {
+                        if (endLine(batch, stats, column, malformed)) {
+                            stats.bytesRead = channel.position() - buffer.remaining();
+                            check(batch, pool, target, stats);
+                            if (progress != null) {
+                                progress.accept(stats);
+                            }
+                        }
+                        column = 0;
+                        skip = false;
+                        malformed = false;
+                    } else if (ch == '\r' || skip) {
+                        continue;
+                    } else if (column == 0 && ch == '#') {
+                        skip = true;  // Comment line, column stays 0 so the line is not counted
+                    } else {
+                        if (column < CELL_COUNT) {
+                            int value = parseCell(ch);
+                            malformed = value < 0;
+                            skip = malformed;
+                            batch.cells[batch.size * CELL_COUNT + column] = (byte) value;
+                        } else {
+                            skip = true;  // A space or tab starts a trailing annotation, anything else is too long
+                            malformed = ch != ' ' && ch != '\t';
+                        }
+                        column++;
+                    }
+                }
+                buffer.clear();
+            }
+            endLine(batch, stats, column, malformed);  // Last line without a line break
+            stats.bytesRead = stats.totalBytes;
+            check(batch, pool, target, stats);
+            if (progress != null) {
+                progress.accept(stats);
+            }
+            return stats;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Command line entry point: imports a text dump into a new library file, printing progress.
+     *
+     * @param args The text file to read, the library file to write and optionally --dedupe
+     *             to reject symmetric duplicates.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SudokuPuzzleImporter <puzzles.txt> <library> [--dedupe]");
+            return;
+        }
+        boolean deduplicate = args.length > 2 && args[2].equals("--dedupe");
+        long start = System.nanoTime();
+        Stats stats;
+        try (SudokuPuzzleLibraryWriter writer = new SudokuPuzzleLibraryWriter(Path.of(args[1]), deduplicate)) {
+            stats = importPuzzles(Path.of(args[0]), writer, Runtime.getRuntime().availableProcessors(),
+                    progress -> System.out.printf("%5.1f%% %s%n",
+                            100.0 * progress.getBytesRead() / Math.max(1, progress.getTotalBytes()), progress));
+            writer.finish();
+        }
+        System.out.println("Imported in " + (System.nanoTime() - start) / 1_000_000 + " ms: " + stats);
+    }
+
+    /**
+     * Counts a finished line and either rejects it or keeps it in the batch.
+     *
+     * @return True if the batch is full.
+     */
+    private static boolean endLine(Batch batch, Stats stats, int column, boolean malformed) {
+        if (column == 0) {
+            return false;  // Empty or comment line
+        }
+        stats.lines++;
+        if (malformed || column < CELL_COUNT) {
+            stats.rejected[Reject.MALFORMED.ordinal()]++;
+            return false;
+        }
+        return ++batch.size == BATCH_SIZE;
+    }
+
+    /**
+     * Checks the puzzles of a batch in parallel, then writes the survivors in order and empties the batch.
+     */
+    private static void check(Batch batch, ForkJoinPool pool, SudokuPuzzleLibraryWriter target, Stats stats)
+            throws IOException {
+        if (batch.size == 0) {
+            return;
+        }
+        batch.deduplicate = target.isDeduplicating();
+        pool.invoke(new CheckTask(batch, 0, batch.size));
+        SudokuUtilities.SudokuLevel[] levels = SudokuUtilities.SudokuLevel.values();
+        int[] puzzle = new int[CELL_COUNT];
+        int[] solution = new int[CELL_COUNT];
+        int[] canonical = new int[CELL_COUNT];
+        for (int i = 0; i < batch.size; i++) {
+            int outcome = batch.outcomes[i];
+            if (outcome >= LEVEL_COUNT) {
+                stats.rejected[outcome - LEVEL_COUNT]++;
+                continue;
+            }
+            for (int cell = 0; cell < CELL_COUNT; cell++) {
+                puzzle[cell] = batch.cells[i * CELL_COUNT + cell];
+                solution[cell] = batch.solutions[i * CELL_COUNT + cell];
+            }
+            if (batch.deduplicate) {
+                for (int cell = 0; cell < CELL_COUNT; cell++) {
+                    canonical[cell] = batch.canonical[i * CELL_COUNT + cell];
+                }
+            }
+            if (target.add(levels[outcome], puzzle, solution, canonical)) {
+                stats.imported[outcome]++;
+            } else {
+                stats.rejected[Reject.DUPLICATE.ordinal()]++;
+            }
+        }
+        batch.size = 0;
+    }
+
+    private static int parseCell(byte ch) {
+        if (ch == '.' || ch == '0') {
+            return 0;
+        }
+        if (ch >= '1' && ch <= '9') {
+            return ch - '0';
+        }
+        return -1;
+    }
+
+    /**
+     * Parsed puzzles waiting to be checked, with room for their solutions, canonical forms if needed, and outcomes.
+     * An outcome below LEVEL_COUNT is the level of an accepted puzzle; otherwise it is LEVEL_COUNT plus a Reject ordinal.
+     */
+    private static final class Batch {
+        final byte[] cells = new byte[BATCH_SIZE * CELL_COUNT];
+        final byte[] solutions = new byte[BATCH_SIZE * CELL_COUNT];
+        final byte[] canonical = new byte[BATCH_SIZE * CELL_COUNT];
+        final byte[] outcomes = new byte[BATCH_SIZE];
+        int size;
+        boolean deduplicate;  // Whether canonical forms are computed
+    }
+
+    /**
+     * Fork/join task checking the puzzles with indices [from, to) of a batch.
+     */
+    private static class CheckTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Batch batch;  // Never serialized; fork/join tasks stay in memory
+        private final int from;
+        private final int to;
+
+        CheckTask(Batch batch, int from, int to) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new CheckTask(batch, from, middle), new CheckTask(batch, middle, to));
+                return;
+            }
+            BitmaskSolver solver = new BitmaskSolver();  // Shared by all puzzles of this leaf
+            HumanSolver rater = new HumanSolver();
+            int[] puzzle = new int[CELL_COUNT];
+            int[] solution = new int[CELL_COUNT];
+            for (int i = from; i < to; i++) {
+                for (int cell = 0; cell < CELL_COUNT; cell++) {
+                    puzzle[cell] = batch.cells[i * CELL_COUNT + cell];
+                }
+                int outcome = checkPuzzle(puzzle, solution, solver, rater);
+                batch.outcomes[i] = (byte) outcome;
+                if (outcome >= LEVEL_COUNT) {
+                    continue;
+                }
+                for (int cell = 0; cell < CELL_COUNT; cell++) {
+                    batch.solutions[i * CELL_COUNT + cell] = (byte) solution[cell];
+                }
+                if (batch.deduplicate) {
+                    int[] canonical = SudokuCanonicalizer.canonicalForm(puzzle);  // Costly, so done here rather than by the writer
+                    for (int cell = 0; cell < CELL_COUNT; cell++) {
+                        batch.canonical[i * CELL_COUNT + cell] = (byte) canonical[cell];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks one puzzle and, if it is valid, solves and rates it.
+     *
+     * @return The level ordinal of a valid puzzle, or LEVEL_COUNT plus the Reject ordinal.
+     */
+    private static int checkPuzzle(int[] puzzle, int[] solution, BitmaskSolver solver, HumanSolver rater) {
+        if (hasConflictingGivens(puzzle)) {
+            return LEVEL_COUNT + Reject.CONFLICTING_GIVENS.ordinal();
+        }
+        switch (solver.countSolutions(puzzle, 2)) {
+            case 0: return LEVEL_COUNT + Reject.NO_SOLUTION.ordinal();
+            case 1: break;
+            default: return LEVEL_COUNT + Reject.MULTIPLE_SOLUTIONS.ordinal();
+        }
+        solver.copySolution(solution);
+        HumanSolver.Technique hardest = rater.rate(puzzle).getHardest();
+        for (SudokuUtilities.SudokuLevel level : SudokuUtilities.SudokuLevel.values()) {
+            if (hardest.compareTo(SudokuGenerator.getMinTechnique(level)) >= 0
+                    && hardest.compareTo(SudokuGenerator.getMaxTechnique(level)) <= 0) {
+                return level.ordinal();  // The level whose technique range holds the hardest technique
+            }
+        }
+        return SudokuUtilities.SudokuLevel.HARD.ordinal();
+    }
+
+    private static boolean hasConflictingGivens(int[] puzzle) {
+        int[] rows = new int[GRID_SIZE];
+        int[] cols = new int[GRID_SIZE];
+        int[] boxes = new int[GRID_SIZE];
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int value = puzzle[cell];
+            if (value == 0) {
+                continue;
+            }
+            int bit = 1 << (value - 1);
+            int row = cell / GRID_SIZE;
+            int col = cell % GRID_SIZE;
+            int box = (row / 3) * 3 + col / 3;
+            if (((rows[row] | cols[col] | boxes[box]) & bit) != 0) {
+                return true;
+            }
+            rows[row] |= bit;
+            cols[col] |= bit;
+            boxes[box] |= bit;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,86 @@
+package com.kth25.demo.model;
+
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * Hash index of puzzles keyed on their canonical form, used to reject puzzles that are the same
+ * as an already indexed puzzle up to symmetry. Each entry keeps only the canonical form packed into
+ * 4 bits per cell. Lookups and inserts are O(1) once the canonical form is known.
+ * The index is thread-safe.
+ */
+public class SudokuPuzzleIndex {
+    private static final int CELL_COUNT = GRID_SIZE * GRID_SIZE;
+    private static final int CELLS_PER_WORD = 16;  // 16 cells of 4 bits in a long
+    private static final int WORD_COUNT = (CELL_COUNT + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+
+    private final Set<CanonicalKey> keys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Adds a puzzle to the index unless a symmetric copy of it is already there.
+     *
+     * @param puzzle 81 cell values in row-major order, 0 for empty cells. Not modified.
+     * @return True if the puzzle was added, false if it is a duplicate.
+     */
+    public boolean add(int[] puzzle) {
+        return keys.add(new CanonicalKey(SudokuCanonicalizer.canonicalForm(puzzle)));
+    }
+
+    /**
+     * Adds a puzzle that is already in canonical form, skipping the canonicalization.
+     *
+     * @param canonical The canonical form of a puzzle, as returned by SudokuCanonicalizer.canonicalForm.
+     * @return True if the puzzle was added, false if it is a duplicate.
+     */
+    public boolean addCanonical(int[] canonical) {
+        return keys.add(new CanonicalKey(canonical));
+    }
+
+    /**
+     * Checks whether a puzzle or a symmetric copy of it is in the index.
+     *
+     * @param puzzle 81 cell values in row-major order, 0 for empty cells. Not modified.
+     * @return True if the puzzle is a duplicate of an indexed puzzle.
+     */
+    public boolean contains(int[] puzzle) {
+        return keys.contains(new CanonicalKey(SudokuCanonicalizer.canonicalForm(puzzle)));
+    }
+
+    /**
+     * Gets the number of distinct puzzles in the index.
+     *
+     * @return The number of indexed puzzles.
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * A canonical form packed into 4 bits per cell.
+     */
+    private static final class CanonicalKey {
+        private final long[] words = new long[WORD_COUNT];
+        private final int hash;
+
+        CanonicalKey(int[] canonical) {
+            for (int cell = 0; cell < CELL_COUNT; cell++) {
+                words[cell / CELLS_PER_WORD] |= (long) canonical[cell] << (4 * (cell % CELLS_PER_WORD));
+            }
+            hash = Arrays.hashCode(words);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CanonicalKey && Arrays.equals(words, ((CanonicalKey) o).words);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
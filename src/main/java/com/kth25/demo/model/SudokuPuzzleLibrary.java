@@ -0,0 +1,156 @@
+package com.kth25.demo.model;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.kth25.demo.model.SudokuBoard.CELL_COUNT;
+
+/**
+ * A read-only library of pre-generated puzzles stored in one file and accessed through a memory mapping.
+ * The file starts with a fixed header followed by fixed-size records, grouped by difficulty level
+ * (all EASY puzzles first, then MEDIUM, then HARD), big-endian:
+ * <pre>
+ *   int    magic          "SDKL"
+ *   short  version        1
+ *   short  recordSize     82
+ *   int    count[3]       number of puzzles of each level
+ *   int    first[3]       record number of the first puzzle of each level
+ *   byte   records[][82]  41 bytes of puzzle nibbles (0 for empty cells), then 41 bytes of solution nibbles
+ * </pre>
+ * Finding puzzle #N of a level is one offset calculation; cells are read straight from the mapping
+ * without parsing or copying the file onto the heap. Reads use absolute positions only, so a library
+ * can be shared between threads. Libraries are written by SudokuPuzzleLibraryBuilder.
+ */
+public final class SudokuPuzzleLibrary {
+    static final int MAGIC = 0x53444B4C;  // "SDKL"
+    static final short VERSION = 1;
+    static final int NIBBLE_BYTES = (CELL_COUNT + 1) / 2;
+    static final int RECORD_SIZE = 2 * NIBBLE_BYTES;
+    static final int LEVEL_COUNT = SudokuUtilities.SudokuLevel.values().length;
+    static final int HEADER_SIZE = Integer.BYTES + 2 * Short.BYTES + 2 * LEVEL_COUNT * Integer.BYTES;
+
+    private final MappedByteBuffer buffer;
+    private final int[] counts = new int[LEVEL_COUNT];
+    private final int[] firsts = new int[LEVEL_COUNT];
+
+    private SudokuPuzzleLibrary(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE) throw new IOException("not a puzzle library, size " + buffer.capacity());
+        int magic = buffer.getInt(0);
+        if (magic != MAGIC) throw new IOException("not a puzzle library, magic " + Integer.toHexString(magic));
+        short version = buffer.getShort(Integer.BYTES);
+        if (version != VERSION) throw new IOException("unsupported library version " + version);
+        short recordSize = buffer.getShort(Integer.BYTES + Short.BYTES);
+        if (recordSize != RECORD_SIZE) throw new IOException("unsupported record size " + recordSize);
+
+        long records = 0;
+        for (int level = 0; level < LEVEL_COUNT; level++) {
+            counts[level] = buffer.getInt(countOffset(level));
+            firsts[level] = buffer.getInt(firstOffset(level));
+            if (counts[level] < 0 || firsts[level] != records) throw new IOException("corrupt library index");
+            records += counts[level];
+        }
+        if (buffer.capacity() != HEADER_SIZE + records * RECORD_SIZE) {
+            throw new IOException("library size " + buffer.capacity() + " does not match " + records + " records");
+        }
+    }
+
+    /**
+     * Opens a library file and maps it into memory.
+     *
+     * @param path The library file.
+     * @return The opened library.
+     * @throws IOException If the file cannot be read or is not a valid library.
+     */
+    public static SudokuPuzzleLibrary open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("library too large, " + channel.size() + " bytes");
+            // The mapping stays valid after the channel is closed
+            return new SudokuPuzzleLibrary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Gets the number of puzzles of a difficulty level.
+     *
+     * @param level The difficulty level (EASY, MEDIUM, HARD).
+     * @return The number of puzzles of that level.
+     */
+    public int size(SudokuUtilities.SudokuLevel level) {
+        return counts[level.ordinal()];
+    }
+
+    /**
+     * Reads a puzzle and its solution.
+     *
+     * @param level    The difficulty level (EASY, MEDIUM, HARD).
+     * @param index    The index of the puzzle within its level.
+     * @param puzzle   An array of 81 elements that receives the initial values (0 for empty cells).
+     * @param solution An array of 81 elements that receives the solution.
+     * @throws IndexOutOfBoundsException If index is not below size(level).
+     */
+    public void read(SudokuUtilities.SudokuLevel level, int index, int[] puzzle, int[] solution) {
+        int offset = recordOffset(level, index);
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            puzzle[cell] = readNibble(buffer, offset, cell);
+            solution[cell] = readNibble(buffer, offset + NIBBLE_BYTES, cell);
+        }
+    }
+
+    /**
+     * Initializes a board with a puzzle, reading the cells straight from the mapping.
+     *
+     * @param level The difficulty level (EASY, MEDIUM, HARD).
+     * @param index The index of the puzzle within its level.
+     * @param board The board to initialize.
+     * @throws IndexOutOfBoundsException If index is not below size(level).
+     */
+    public void loadInto(SudokuUtilities.SudokuLevel level, int index, SudokuBoard board) {
+        int offset = recordOffset(level, index);
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int value = readNibble(buffer, offset, cell);
+            board.setCellState(cell, value, readNibble(buffer, offset + NIBBLE_BYTES, cell), value != 0);
+        }
+        board.cellsReplaced();
+    }
+
+    private int recordOffset(SudokuUtilities.SudokuLevel level, int index) {
+        int count = counts[level.ordinal()];
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("index " + index + " of " + count);
+        return HEADER_SIZE + (firsts[level.ordinal()] + index) * RECORD_SIZE;
+    }
+
+    static int countOffset(int level) {
+        return Integer.BYTES + 2 * Short.BYTES + level * Integer.BYTES;
+    }
+
+    static int firstOffset(int level) {
+        return countOffset(LEVEL_COUNT) + level * Integer.BYTES;
+    }
+
+    /**
+     * Writes one record at the buffer's position: the puzzle nibbles followed by the solution nibbles.
+     */
+    static void writeRecord(ByteBuffer target, int[] puzzle, int[] solution) {
+        writeNibbles(target, puzzle);
+        writeNibbles(target, solution);
+    }
+
+    private static void writeNibbles(ByteBuffer target, int[] values) {
+        for (int i = 0; i < NIBBLE_BYTES; i++) {
+            int low = values[2 * i];
+            int high = 2 * i + 1 < CELL_COUNT ? values[2 * i + 1] : 0;  // The last high nibble has no cell
+            target.put((byte) (low | high << 4));
+        }
+    }
+
+    private static int readNibble(ByteBuffer source, int offset, int cell) {
+        int packed = source.get(offset + cell / 2);
+        return (cell % 2 == 0 ? packed : packed >> 4) & 0xF;
+    }
+}
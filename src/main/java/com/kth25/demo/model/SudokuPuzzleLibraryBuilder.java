@@ -0,0 +1,93 @@
+package com.kth25.demo.model;
+
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.kth25.demo.model.SudokuPuzzleLibrary.HEADER_SIZE;
+import static com.kth25.demo.model.SudokuPuzzleLibrary.RECORD_SIZE;
+
+/**
+ * Builds a SudokuPuzzleLibrary file from freshly generated puzzles.
+ * Puzzles are generated in parallel chunks and each chunk is handed to a SudokuPuzzleLibraryWriter
+ * as soon as it is done, so memory use stays bounded however many puzzles are built. The same seed gives the same file.
+ * Puzzles are canonicalized in parallel as well; the writer drops symmetric duplicates and further chunks make up for them.
+ * Generation costs about as much per puzzle as canonicalizing, and the writer's index of added puzzles grows by
+ * about 130 bytes per puzzle.
+ * Can be run from the command line: {@code SudokuPuzzleLibraryBuilder <file> <easy> <medium> <hard> [seed]}.
+ */
+public final class SudokuPuzzleLibraryBuilder {
+    /** Puzzles generated and written per chunk */
+    public static final int CHUNK_SIZE = 1024;
+
+    private SudokuPuzzleLibraryBuilder() {
+    }
+
+    /**
+     * Generates puzzles and writes them to a library file, replacing any existing file.
+     *
+     * @param path        The library file to write.
+     * @param easyCount   The number of EASY puzzles.
+     * @param mediumCount The number of MEDIUM puzzles.
+     * @param hardCount   The number of HARD puzzles.
+     * @param parallelism The number of generator threads.
+     * @param seed        The seed all puzzles are derived from.
+     * @throws IOException If the file cannot be written.
+     * @throws IllegalArgumentException If a count is negative or the library would exceed 2 GB.
+     */
+    public static void build(Path path, int easyCount, int mediumCount, int hardCount,
+                             int parallelism, long seed) throws IOException {
+        int[] counts = {easyCount, mediumCount, hardCount};
+        long records = 0;
+        for (int count : counts) {
+            if (count < 0) throw new IllegalArgumentException("count " + count);
+            records += count;
+        }
+        if (HEADER_SIZE + records * RECORD_SIZE > Integer.MAX_VALUE) throw new IllegalArgumentException("records " + records);
+
+        SplittableRandom seeds = new SplittableRandom(seed);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (SudokuPuzzleLibraryWriter writer = new SudokuPuzzleLibraryWriter(path, true)) {
+            for (SudokuUtilities.SudokuLevel level : SudokuUtilities.SudokuLevel.values()) {
+                while (writer.size(level) < counts[level.ordinal()]) {
+                    int chunk = Math.min(CHUNK_SIZE, counts[level.ordinal()] - writer.size(level));
+                    int[][][][] batch = SudokuUtilities.generateBatch(level, chunk, parallelism, seeds.nextLong(), true);
+                    int[][] puzzles = new int[chunk][];
+                    for (int i = 0; i < chunk; i++) {
+                        puzzles[i] = SudokuUtilities.toCellArray(batch[i], 0);
+                    }
+                    int[][] canonical = new int[chunk][];
+                    pool.submit(() -> Arrays.parallelSetAll(canonical,
+                            i -> SudokuCanonicalizer.canonicalForm(puzzles[i]))).join();  // Runs on the pool's threads
+                    for (int i = 0; i < chunk; i++) {
+                        writer.add(level, puzzles[i], SudokuUtilities.toCellArray(batch[i], 1), canonical[i]);
+                    }
+                }
+            }
+            writer.finish();  // Not reached if generation fails, so an existing library survives
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Command line entry point: builds a library with the given number of puzzles per level.
+     *
+     * @param args The file, the EASY, MEDIUM and HARD counts, and optionally a seed.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: SudokuPuzzleLibraryBuilder <file> <easy> <medium> <hard> [seed]");
+            return;
+        }
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+        long start = System.nanoTime();
+        build(Path.of(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                Runtime.getRuntime().availableProcessors(), seed);
+        System.out.println("Library written in " + (System.nanoTime() - start) / 1_000_000 + " ms, seed " + seed);
+    }
+}
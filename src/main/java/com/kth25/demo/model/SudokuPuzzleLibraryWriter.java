@@ -0,0 +1,221 @@
+package com.kth25.demo.model;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static com.kth25.demo.model.SudokuPuzzleLibrary.HEADER_SIZE;
+import static com.kth25.demo.model.SudokuPuzzleLibrary.LEVEL_COUNT;
+import static com.kth25.demo.model.SudokuPuzzleLibrary.RECORD_SIZE;
+
+/**
+ * Writes a SudokuPuzzleLibrary file from puzzles added in any level order.
+ * Records of each level are buffered and spooled to a temporary file next to the library, so memory
+ * use stays bounded. Optionally, puzzles that are the same as an already added puzzle up to symmetry are
+ * rejected through a SudokuPuzzleIndex. That costs a canonicalization per puzzle, about a millisecond, and
+ * about 130 bytes of heap per added puzzle for its packed key and hash node, so memory then grows with the
+ * library: fine for generated libraries of a few million puzzles, too much for multi-gigabyte imports.
+ * On finish the header is written and the spooled records are appended level by level
+ * to a temporary file, which then atomically replaces the library. Closing a writer that was not finished,
+ * for example because the build failed, discards the puzzles and leaves an existing library untouched.
+ * A writer is not thread-safe.
+ */
+public final class SudokuPuzzleLibraryWriter implements Closeable {
+    /** Records buffered per level before they are spooled */
+    private static final int BUFFER_RECORDS = 1024;
+
+    private final Path path;
+    private final Path[] spoolPaths = new Path[LEVEL_COUNT];
+    private final FileChannel[] spools = new FileChannel[LEVEL_COUNT];
+    private final ByteBuffer[] buffers = new ByteBuffer[LEVEL_COUNT];
+    private final int[] counts = new int[LEVEL_COUNT];
+    private final SudokuPuzzleIndex index;  // Null unless duplicates are rejected
+    private long records;
+    private boolean closed;
+    private boolean finished;
+
+    /**
+     * Starts writing a library that keeps every added puzzle.
+     * The file itself is only created when the writer is finished.
+     *
+     * @param path The library file to write, replaced if it exists.
+     * @throws IOException If the temporary spool files cannot be created.
+     */
+    public SudokuPuzzleLibraryWriter(Path path) throws IOException {
+        this(path, false);
+    }
+
+    /**
+     * Starts writing a library. The file itself is only created when the writer is finished.
+     *
+     * @param path        The library file to write, replaced if it exists.
+     * @param deduplicate Whether to reject puzzles that are symmetric copies of added ones,
+     *                    at the memory and time cost described above.
+     * @throws IOException If the temporary spool files cannot be created.
+     */
+    public SudokuPuzzleLibraryWriter(Path path, boolean deduplicate) throws IOException {
+        this.path = path;
+        this.index = deduplicate ? new SudokuPuzzleIndex() : null;
+        Path directory = path.toAbsolutePath().getParent();
+        try {
+            for (int level = 0; level < LEVEL_COUNT; level++) {
+                spoolPaths[level] = Files.createTempFile(directory, "sudoku-library-", ".spool");
+                spools[level] = FileChannel.open(spoolPaths[level], StandardOpenOption.READ, StandardOpenOption.WRITE);
+                buffers[level] = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE);
+            }
+        } catch (IOException e) {
+            deleteSpools();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether the writer rejects symmetric duplicates.
+     *
+     * @return True if add canonicalizes puzzles and rejects duplicates.
+     */
+    public boolean isDeduplicating() {
+        return index != null;
+    }
+
+    /**
+     * Adds a puzzle to the library, unless the writer deduplicates and a symmetric copy of it was added before.
+     *
+     * @param level    The difficulty level the puzzle is filed under.
+     * @param puzzle   81 initial values in row-major order, 0 for empty cells.
+     * @param solution 81 solution values in row-major order.
+     * @return True if the puzzle was added, false if it is a duplicate.
+     * @throws IOException If spooling fails.
+     * @throws IllegalStateException If the writer is finished or closed, or the library would exceed 2 GB.
+     */
+    public boolean add(SudokuUtilities.SudokuLevel level, int[] puzzle, int[] solution) throws IOException {
+        return add(level, puzzle, solution, index == null ? null : SudokuCanonicalizer.canonicalForm(puzzle));
+    }
+
+    /**
+     * Adds a puzzle whose canonical form is already known, unless the writer deduplicates and a symmetric copy
+     * of it was added before. Canonicalizing is about as expensive as solving, so callers that work in parallel
+     * compute it there.
+     *
+     * @param level     The difficulty level the puzzle is filed under.
+     * @param puzzle    81 initial values in row-major order, 0 for empty cells.
+     * @param solution  81 solution values in row-major order.
+     * @param canonical The canonical form of the puzzle, as returned by SudokuCanonicalizer.canonicalForm.
+     *                  Ignored, and may be null, if the writer does not deduplicate.
+     * @return True if the puzzle was added, false if it is a duplicate.
+     * @throws IOException If spooling fails.
+     * @throws IllegalStateException If the writer is finished or closed, or the library would exceed 2 GB.
+     */
+    public boolean add(SudokuUtilities.SudokuLevel level, int[] puzzle, int[] solution, int[] canonical)
+            throws IOException {
+        if (closed || finished) throw new IllegalStateException("writer closed");
+        if (HEADER_SIZE + (records + 1) * RECORD_SIZE > Integer.MAX_VALUE) throw new IllegalStateException("library full");
+        if (index != null && !index.addCanonical(canonical)) {
+            return false;
+        }
+        ByteBuffer buffer = buffers[level.ordinal()];
+        if (!buffer.hasRemaining()) {
+            spool(level.ordinal());
+        }
+        SudokuPuzzleLibrary.writeRecord(buffer, puzzle, solution);
+        counts[level.ordinal()]++;
+        records++;
+        return true;
+    }
+
+    /**
+     * Gets the number of puzzles added for a difficulty level.
+     *
+     * @param level The difficulty level (EASY, MEDIUM, HARD).
+     * @return The number of puzzles added so far.
+     */
+    public int size(SudokuUtilities.SudokuLevel level) {
+        return counts[level.ordinal()];
+    }
+
+    /**
+     * Writes the library file and removes the spool files. The library is written to a temporary file
+     * next to it and moved into place atomically, so readers never see a partly written library.
+     *
+     * @throws IOException If the library cannot be written; an existing library is then left unchanged.
+     * @throws IllegalStateException If the writer is already finished or closed.
+     */
+    public void finish() throws IOException {
+        if (closed || finished) throw new IllegalStateException("writer closed");
+        finished = true;
+        Path temporary = Files.createTempFile(path.toAbsolutePath().getParent(), "sudoku-library-", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(SudokuPuzzleLibrary.MAGIC);
+                header.putShort(SudokuPuzzleLibrary.VERSION);
+                header.putShort((short) RECORD_SIZE);
+                for (int level = 0; level < LEVEL_COUNT; level++) {
+                    header.putInt(counts[level]);
+                }
+                int first = 0;
+                for (int level = 0; level < LEVEL_COUNT; level++) {
+                    header.putInt(first);
+                    first += counts[level];
+                }
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                for (int level = 0; level < LEVEL_COUNT; level++) {
+                    spool(level);
+                    long size = spools[level].size();
+                    for (long done = 0; done < size; ) {
+                        done += spools[level].transferTo(done, size - done, channel);
+                    }
+                }
+                channel.force(false);  // The data must be on disk before the rename makes it the library
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);  // Only still there if writing or moving failed
+            close();
+        }
+    }
+
+    /**
+     * Removes the spool files. If the writer was not finished, the added puzzles are discarded
+     * and no library is written.
+     *
+     * @throws IOException If a spool file cannot be removed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        deleteSpools();
+    }
+
+    private void spool(int level) throws IOException {
+        ByteBuffer buffer = buffers[level];
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            spools[level].write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void deleteSpools() throws IOException {
+        for (int level = 0; level < LEVEL_COUNT; level++) {
+            if (spools[level] != null) {
+                spools[level].close();
+            }
+            if (spoolPaths[level] != null) {
+                Files.deleteIfExists(spoolPaths[level]);
+            }
+        }
+    }
+}
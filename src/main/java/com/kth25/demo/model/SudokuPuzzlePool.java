@@ -0,0 +1,211 @@
+package com.kth25.demo.model;
+
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of pre-generated puzzles for each difficulty level.
+ * Background workers on virtual threads generate puzzles rated for their level whenever a level drops below its low watermark
+ * and stop once it reaches the high watermark, so taking a puzzle never waits for the generator.
+ * If a level is empty, take falls back to a variation of a predefined puzzle and counts a miss.
+ */
+public class SudokuPuzzlePool implements AutoCloseable {
+    public static final int DEFAULT_LOW_WATERMARK = 4;
+    public static final int DEFAULT_HIGH_WATERMARK = 16;
+
+    private final Map<SudokuUtilities.SudokuLevel, LevelPool> pools = new EnumMap<>(SudokuUtilities.SudokuLevel.class);
+    private final ExecutorService refillExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final int lowWatermark;
+    private final int highWatermark;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a pool with the default watermarks.
+     */
+    public SudokuPuzzlePool() {
+        this(DEFAULT_LOW_WATERMARK, DEFAULT_HIGH_WATERMARK);
+    }
+
+    /**
+     * Constructs a pool with the given watermarks. No puzzles are generated until prefill or take is called.
+     *
+     * @param lowWatermark  The size below which a level is refilled.
+     * @param highWatermark The maximum number of puzzles kept per level.
+     * @throws IllegalArgumentException If the watermarks are negative or out of order.
+     */
+    public SudokuPuzzlePool(int lowWatermark, int highWatermark) {
+        if (lowWatermark < 0 || highWatermark <= 0 || lowWatermark > highWatermark)
+            throw new IllegalArgumentException("watermarks " + lowWatermark + "/" + highWatermark);
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        for (SudokuUtilities.SudokuLevel level : SudokuUtilities.SudokuLevel.values()) {
+            pools.put(level, new LevelPool(level, highWatermark));
+        }
+    }
+
+    /**
+     * Starts filling every level up to the high watermark in the background.
+     */
+    public void prefill() {
+        for (LevelPool pool : pools.values()) {
+            pool.startRefill();
+        }
+    }
+
+    /**
+     * Takes a puzzle for a difficulty level without waiting for the generator.
+     *
+     * @param level The level of difficulty (EASY, MEDIUM, HARD).
+     * @return A 3-dimensional int matrix in the format of SudokuUtilities.generateRandomSudokuMatrix.
+     */
+    public int[][][] take(SudokuUtilities.SudokuLevel level) {
+        LevelPool pool = pools.get(level);
+        int[][][] puzzle = pool.puzzles.poll();
+        if (puzzle != null) {
+            pool.hits.increment();
+        } else {
+            pool.misses.increment();
+            puzzle = SudokuUtilities.generatePredefinedSudokuMatrix(level);
+        }
+        if (pool.puzzles.size() < lowWatermark) {
+            pool.startRefill();
+        }
+        return puzzle;
+    }
+
+    /**
+     * Gets the number of puzzles currently available for a level.
+     *
+     * @param level The difficulty level.
+     * @return The number of pooled puzzles.
+     */
+    public int size(SudokuUtilities.SudokuLevel level) {
+        return pools.get(level).puzzles.size();
+    }
+
+    /**
+     * Gets the number of takes for a level that were served from the pool.
+     *
+     * @param level The difficulty level.
+     * @return The hit count.
+     */
+    public long getHits(SudokuUtilities.SudokuLevel level) {
+        return pools.get(level).hits.sum();
+    }
+
+    /**
+     * Gets the number of takes for a level that found the pool empty.
+     *
+     * @param level The difficulty level.
+     * @return The miss count.
+     */
+    public long getMisses(SudokuUtilities.SudokuLevel level) {
+        return pools.get(level).misses.sum();
+    }
+
+    /**
+     * Gets the number of puzzles generated in the background for a level.
+     *
+     * @param level The difficulty level.
+     * @return The number of generated puzzles.
+     */
+    public long getRefillCount(SudokuUtilities.SudokuLevel level) {
+        return pools.get(level).refillCount.sum();
+    }
+
+    /**
+     * Gets the average time it took to generate one pooled puzzle for a level.
+     *
+     * @param level The difficulty level.
+     * @return The average generation time in nanoseconds, or 0 if nothing has been generated yet.
+     */
+    public long getAverageRefillNanos(SudokuUtilities.SudokuLevel level) {
+        LevelPool pool = pools.get(level);
+        long count = pool.refillCount.sum();
+        return count == 0 ? 0 : pool.refillNanos.sum() / count;
+    }
+
+    /**
+     * Gets the longest time it took to generate one pooled puzzle for a level.
+     *
+     * @param level The difficulty level.
+     * @return The maximum generation time in nanoseconds.
+     */
+    public long getMaxRefillNanos(SudokuUtilities.SudokuLevel level) {
+        return pools.get(level).maxRefillNanos.get();
+    }
+
+    /**
+     * Stops the background workers. Puzzles already pooled can still be taken.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        refillExecutor.shutdownNow();
+    }
+
+    /**
+     * The puzzles and counters of a single difficulty level.
+     */
+    private class LevelPool {
+        private final SudokuUtilities.SudokuLevel level;
+        private final ArrayBlockingQueue<int[][][]> puzzles;
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder refillCount = new LongAdder();
+        private final LongAdder refillNanos = new LongAdder();
+        private final AtomicLong maxRefillNanos = new AtomicLong();
+
+        LevelPool(SudokuUtilities.SudokuLevel level, int capacity) {
+            this.level = level;
+            this.puzzles = new ArrayBlockingQueue<>(capacity);
+        }
+
+        /**
+         * Starts a refill worker unless one is already running for this level.
+         */
+        void startRefill() {
+            if (closed || !refilling.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                refillExecutor.execute(this::refill);
+            } catch (RejectedExecutionException e) {
+                refilling.set(false);  // The pool was closed concurrently
+            }
+        }
+
+        private void refill() {
+            try {
+                SudokuGenerator generator = new SudokuGenerator(new SplittableRandom());
+                while (!closed && puzzles.size() < highWatermark) {
+                    long start = System.nanoTime();
+                    int[][][] puzzle = generator.generateRatedMatrix(level);  // Slower, but off the caller's thread
+                    long elapsed = System.nanoTime() - start;
+                    refillCount.increment();
+                    refillNanos.add(elapsed);
+                    maxRefillNanos.accumulateAndGet(elapsed, Math::max);
+                    if (!puzzles.offer(puzzle)) {
+                        break;  // Full
+                    }
+                }
+            } finally {
+                refilling.set(false);
+            }
+            // A take may have drained the level while this worker was finishing
+            if (puzzles.size() < lowWatermark) {
+                startRefill();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.kth25.demo.model;
+
+
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * A read-only view of a base puzzle seen through a SudokuTransform.
+ * The base puzzle and solution arrays are shared, not copied, so any number of distinct games can be
+ * served from one seed puzzle at the cost of one transform each. Values are mapped on every read.
+ */
+public class SudokuPuzzleView {
+    private final int[] basePuzzle;
+    private final int[] baseSolution;
+    private final SudokuTransform transform;
+
+    /**
+     * Constructs a view over a base puzzle. The arrays must not be modified while the view is in use.
+     *
+     * @param basePuzzle   81 initial values in row-major order (0 represents an empty cell).
+     * @param baseSolution 81 solution values in row-major order.
+     * @param transform    The transform applied when reading the view.
+     */
+    public SudokuPuzzleView(int[] basePuzzle, int[] baseSolution, SudokuTransform transform) {
+        this.basePuzzle = basePuzzle;
+        this.baseSolution = baseSolution;
+        this.transform = transform;
+    }
+
+    /**
+     * Gets the initial value of a cell.
+     *
+     * @param row The row index of the cell.
+     * @param col The column index of the cell.
+     * @return The initial value, 0 for an empty cell.
+     */
+    public int getInitialValue(int row, int col) {
+        return transform.valueAt(basePuzzle, row * GRID_SIZE + col);
+    }
+
+    /**
+     * Gets the solution value of a cell.
+     *
+     * @param row The row index of the cell.
+     * @param col The column index of the cell.
+     * @return The solution value.
+     */
+    public int getSolutionValue(int row, int col) {
+        return transform.valueAt(baseSolution, row * GRID_SIZE + col);
+    }
+
+    /**
+     * Gets the transform of this view.
+     *
+     * @return The transform.
+     */
+    public SudokuTransform getTransform() {
+        return transform;
+    }
+
+    /**
+     * Creates a view of the same base puzzle through another transform.
+     *
+     * @param other The transform of the new view.
+     * @return A new view sharing this view's base puzzle.
+     */
+    public SudokuPuzzleView withTransform(SudokuTransform other) {
+        return new SudokuPuzzleView(basePuzzle, baseSolution, other);
+    }
+
+    /**
+     * Copies the transformed puzzle into a 3-dimensional matrix.
+     *
+     * @return A 3-dimensional int matrix: [row][col][0] for initial values, [row][col][1] for solution values.
+     */
+    public int[][][] toMatrix() {
+        int[][][] matrix = new int[GRID_SIZE][GRID_SIZE][2];
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                matrix[row][col][0] = getInitialValue(row, col);
+                matrix[row][col][1] = getSolutionValue(row, col);
+            }
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,276 @@
+package com.kth25.demo.model;
+
+
+import java.util.random.RandomGenerator;
+
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+import static com.kth25.demo.model.SudokuUtilities.SECTION_SIZE;
+
+/**
+ * An element of the Sudoku symmetry group: a combination of band and stack permutations, row permutations
+ * within each band, column permutations within each stack, an optional transpose and a relabeling of the digits.
+ * Every such transform maps a valid Sudoku to another valid Sudoku; rotations and mirrorings are included as
+ * combinations of these. The whole transform is described by a single long code below GROUP_SIZE, and the
+ * index tables needed to apply it are derived from the code once, so a transform can be applied lazily to a
+ * shared puzzle through a SudokuPuzzleView instead of copying the grid.
+ * Transforms are immutable and thread-safe.
+ */
+public final class SudokuTransform {
+    static final int LINE_CODES = 6 * 6 * 6 * 6;  // Band/stack permutation and three permutations within them
+    private static final int DIGIT_CODES = 362880;         // 9!
+    /** The number of distinct transform codes, about 1.2 trillion */
+    public static final long GROUP_SIZE = (long) DIGIT_CODES * 2 * LINE_CODES * LINE_CODES;
+
+    /** The transform that leaves every puzzle unchanged */
+    public static final SudokuTransform IDENTITY = fromCode(0);
+
+    private final long code;
+    private final byte[] sourceCell = new byte[GRID_SIZE * GRID_SIZE];  // Source cell of each target cell
+    private final byte[] digitMap = new byte[GRID_SIZE + 1];           // Target digit of each source digit, 0 -> 0
+
+    private SudokuTransform(long code, int[] rowMap, int[] colMap, boolean transpose, int[] digits) {
+        this.code = code;
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                int source = transpose
+                        ? colMap[col] * GRID_SIZE + rowMap[row]
+                        : rowMap[row] * GRID_SIZE + colMap[col];
+                sourceCell[row * GRID_SIZE + col] = (byte) source;
+            }
+        }
+        for (int digit = 1; digit <= GRID_SIZE; digit++) {
+            digitMap[digit] = (byte) digits[digit - 1];
+        }
+    }
+
+    /**
+     * Decodes a transform from its code.
+     *
+     * @param code A code between 0 (the identity) and GROUP_SIZE - 1.
+     * @return The transform described by the code.
+     * @throws IllegalArgumentException If the code is out of range.
+     */
+    public static SudokuTransform fromCode(long code) {
+        if (code < 0 || code >= GROUP_SIZE) throw new IllegalArgumentException("code " + code);
+        long rest = code;
+        int colCode = (int) (rest % LINE_CODES);
+        rest /= LINE_CODES;
+        int rowCode = (int) (rest % LINE_CODES);
+        rest /= LINE_CODES;
+        boolean transpose = rest % 2 == 1;
+        int digitCode = (int) (rest / 2);
+
+        int[] digits = new int[GRID_SIZE];
+        unrankPermutation(digitCode, digits, GRID_SIZE);
+        for (int i = 0; i < GRID_SIZE; i++) {
+            digits[i]++;
+        }
+        return new SudokuTransform(code, decodeLines(rowCode), decodeLines(colCode), transpose, digits);
+    }
+
+    /**
+     * Builds a transform from its parts.
+     *
+     * @param rowMap    For each target row, the source row. Must keep rows within bands together.
+     * @param colMap    For each target column, the source column. Must keep columns within stacks together.
+     * @param transpose Whether rows and columns are swapped after the row and column permutations.
+     * @param digits    For each source digit 1-9 (at index digit - 1), the target digit.
+     * @return The transform.
+     * @throws IllegalArgumentException If a map is not a valid permutation or breaks up bands or stacks.
+     */
+    public static SudokuTransform of(int[] rowMap, int[] colMap, boolean transpose, int[] digits) {
+        int[] digitPermutation = new int[GRID_SIZE];
+        for (int i = 0; i < GRID_SIZE; i++) {
+            digitPermutation[i] = digits[i] - 1;
+        }
+        long code = rankPermutation(digitPermutation, GRID_SIZE);
+        code = code * 2 + (transpose ? 1 : 0);
+        code = code * LINE_CODES + encodeLines(rowMap);
+        code = code * LINE_CODES + encodeLines(colMap);
+        return fromCode(code);
+    }
+
+    /**
+     * Draws a uniformly random transform from the whole group.
+     *
+     * @param random The random source.
+     * @return A random transform.
+     */
+    public static SudokuTransform random(RandomGenerator random) {
+        return fromCode(random.nextLong(GROUP_SIZE));
+    }
+
+    /**
+     * Builds a clockwise rotation by a number of quarter turns.
+     *
+     * @param quarterTurns The number of quarter turns; may be negative.
+     * @return The rotation.
+     */
+    public static SudokuTransform rotation(int quarterTurns) {
+        int[] identity = new int[GRID_SIZE];
+        int[] reversed = new int[GRID_SIZE];
+        int[] digits = new int[GRID_SIZE];
+        for (int i = 0; i < GRID_SIZE; i++) {
+            identity[i] = i;
+            reversed[i] = GRID_SIZE - 1 - i;
+            digits[i] = i + 1;
+        }
+        switch (Math.floorMod(quarterTurns, 4)) {
+            case 1: return of(identity, reversed, true, digits);   // target(r, c) = source(8 - c, r)
+            case 2: return of(reversed, reversed, false, digits);  // target(r, c) = source(8 - r, 8 - c)
+            case 3: return of(reversed, identity, true, digits);   // target(r, c) = source(c, 8 - r)
+            default: return IDENTITY;
+        }
+    }
+
+    /**
+     * Gets the code describing this transform.
+     *
+     * @return A code between 0 and GROUP_SIZE - 1.
+     */
+    public long getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the cell of the source puzzle that a target cell is read from.
+     *
+     * @param cell A target cell index in row-major order (0-80).
+     * @return The source cell index.
+     */
+    public int sourceCell(int cell) {
+        return sourceCell[cell];
+    }
+
+    /**
+     * Maps a source digit to its target digit.
+     *
+     * @param digit A digit 1-9, or 0 for an empty cell.
+     * @return The relabeled digit, or 0 for an empty cell.
+     */
+    public int mapDigit(int digit) {
+        return digitMap[digit];
+    }
+
+    /**
+     * Gets the transformed value of a cell.
+     *
+     * @param source The source puzzle, 81 cell values in row-major order.
+     * @param cell   The target cell index (0-80).
+     * @return The value of the target cell.
+     */
+    public int valueAt(int[] source, int cell) {
+        return digitMap[source[sourceCell[cell]]];
+    }
+
+    /**
+     * Writes the transformed puzzle into a target array.
+     *
+     * @param source The source puzzle, 81 cell values in row-major order. Not modified.
+     * @param target An array of 81 elements that receives the transformed puzzle; must not be source.
+     */
+    public void apply(int[] source, int[] target) {
+        for (int cell = 0; cell < target.length; cell++) {
+            target[cell] = digitMap[source[sourceCell[cell]]];
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SudokuTransform && ((SudokuTransform) o).code == code;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(code);
+    }
+
+    @Override
+    public String toString() {
+        return "SudokuTransform[" + code + "]";
+    }
+
+    /**
+     * Decodes a row or column map: a band permutation followed by one permutation within each band.
+     */
+    static int[] decodeLines(int lineCode) {
+        int[] bands = new int[SECTION_SIZE];
+        int[] within = new int[SECTION_SIZE];
+        int[] map = new int[GRID_SIZE];
+        unrankPermutation(lineCode % 6, bands, SECTION_SIZE);
+        lineCode /= 6;
+        for (int band = 0; band < SECTION_SIZE; band++) {
+            unrankPermutation(lineCode % 6, within, SECTION_SIZE);
+            lineCode /= 6;
+            for (int i = 0; i < SECTION_SIZE; i++) {
+                map[band * SECTION_SIZE + i] = bands[band] * SECTION_SIZE + within[i];
+            }
+        }
+        return map;
+    }
+
+    private static int encodeLines(int[] map) {
+        if (map.length != GRID_SIZE) throw new IllegalArgumentException("map length " + map.length);
+        int[] bands = new int[SECTION_SIZE];
+        int[] within = new int[SECTION_SIZE];
+        int[] withinCodes = new int[SECTION_SIZE];
+        for (int band = 0; band < SECTION_SIZE; band++) {
+            bands[band] = map[band * SECTION_SIZE] / SECTION_SIZE;
+            for (int i = 0; i < SECTION_SIZE; i++) {
+                int line = map[band * SECTION_SIZE + i];
+                if (line < 0 || line >= GRID_SIZE || line / SECTION_SIZE != bands[band])
+                    throw new IllegalArgumentException("map breaks up a band at " + (band * SECTION_SIZE + i));
+                within[i] = line % SECTION_SIZE;
+            }
+            withinCodes[band] = rankPermutation(within, SECTION_SIZE);
+        }
+        int lineCode = 0;
+        for (int band = SECTION_SIZE - 1; band >= 0; band--) {
+            lineCode = lineCode * 6 + withinCodes[band];
+        }
+        return lineCode * 6 + rankPermutation(bands, SECTION_SIZE);
+    }
+
+    /**
+     * Ranks a permutation of 0..n-1 in lexicographic order (Lehmer code).
+     *
+     * @throws IllegalArgumentException If the values are not a permutation.
+     */
+    private static int rankPermutation(int[] permutation, int n) {
+        int rank = 0;
+        int used = 0;
+        for (int i = 0; i < n; i++) {
+            int value = permutation[i];
+            if (value < 0 || value >= n || (used & (1 << value)) != 0)
+                throw new IllegalArgumentException("not a permutation at " + i);
+            int smallerUnused = Integer.bitCount(~used & ((1 << value) - 1));
+            rank = rank * (n - i) + smallerUnused;
+            used |= 1 << value;
+        }
+        return rank;
+    }
+
+    /**
+     * Writes the permutation of 0..n-1 with the given lexicographic rank into target.
+     */
+    private static void unrankPermutation(int rank, int[] target, int n) {
+        int[] digits = new int[n];  // Factorial number system digits, most significant first
+        for (int i = n - 1; i >= 0; i--) {
+            int base = n - i;
+            digits[i] = rank % base;
+            rank /= base;
+        }
+        int used = 0;
+        for (int i = 0; i < n; i++) {
+            // Take the digits[i]-th value that has not been used yet
+            int value = 0;
+            for (int remaining = digits[i]; ; value++) {
+                if ((used & (1 << value)) == 0 && remaining-- == 0) {
+                    break;
+                }
+            }
+            target[i] = value;
+            used |= 1 << value;
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package com.kth25.demo.model;
 
 
-import java.util.Random;
+import com.kth25.demo.model.solver.BitmaskSolver;
+import com.kth25.demo.model.solver.SudokuSolver;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Utility class for generating and manipulating Sudoku puzzles.
@@ -13,8 +19,15 @@ public class SudokuUtilities {
     public static final int SECTIONS_PER_ROW = 3;
     public static final int SECTION_SIZE = 3;
 
+    /** Puzzles generated per fork/join leaf task in generateBatch */
+    private static final int BATCH_LEAF_SIZE = 16;
+
+    /** One generator per thread, so generateRandomSudokuMatrix reuses its solver and random source */
+    private static final ThreadLocal<SudokuGenerator> GENERATORS =
+            ThreadLocal.withInitial(() -> new SudokuGenerator(ThreadLocalRandom.current()));
+
     /**
-     * Generates a random Sudoku matrix based on the specified difficulty level.
+     * Generates a new random Sudoku matrix with a unique solution based on the specified difficulty level.
      *
      * @param level The level of difficulty (EASY, MEDIUM, HARD).
      * @return A 3-dimensional int matrix representing the Sudoku puzzle and its solution.
@@ -22,35 +35,140 @@ public class SudokuUtilities {
      *         [row][col][1] contains the solution.
      */
     public static int[][][] generateRandomSudokuMatrix(SudokuLevel level) {
-        String representationString;
-        switch (level) {
-            case EASY: representationString = easy; break;
-            case MEDIUM: representationString = medium; break;
-            case HARD: representationString = hard; break;
-            default: representationString = medium;
+        return GENERATORS.get().generateMatrix(level);
+    }
+
+    /**
+     * Generates a batch of unique-solution puzzles in parallel with a random seed.
+     *
+     * @param level       The level of difficulty (EASY, MEDIUM, HARD).
+     * @param count       The number of puzzles to generate.
+     * @param parallelism The number of worker threads to use.
+     * @return An array of count Sudoku matrices in the format of generateRandomSudokuMatrix.
+     */
+    public static int[][][][] generateBatch(SudokuLevel level, int count, int parallelism) {
+        return generateBatch(level, count, parallelism, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Generates a batch of unique-solution puzzles in parallel on a fork/join pool, by clue count only.
+     * Every puzzle gets its own random source derived from the seed and its index in the batch,
+     * so the same seed always gives the same puzzles in the same order, regardless of parallelism.
+     *
+     * @param level       The level of difficulty (EASY, MEDIUM, HARD).
+     * @param count       The number of puzzles to generate.
+     * @param parallelism The number of worker threads to use.
+     * @param seed        The seed the whole batch is derived from.
+     * @return An array of count Sudoku matrices in the format of generateRandomSudokuMatrix.
+     * @throws IllegalArgumentException If count is negative or parallelism is not positive.
+     */
+    public static int[][][][] generateBatch(SudokuLevel level, int count, int parallelism, long seed) {
+        return generateBatch(level, count, parallelism, seed, false);
+    }
+
+    /**
+     * Generates a batch of unique-solution puzzles in parallel on a fork/join pool, as generateBatch does,
+     * optionally rating each puzzle for the level with SudokuGenerator.generateRated, which is several times slower.
+     *
+     * @param level       The level of difficulty (EASY, MEDIUM, HARD).
+     * @param count       The number of puzzles to generate.
+     * @param parallelism The number of worker threads to use.
+     * @param seed        The seed the whole batch is derived from.
+     * @param rated       Whether puzzles must match the level's technique range.
+     * @return An array of count Sudoku matrices in the format of generateRandomSudokuMatrix.
+     * @throws IllegalArgumentException If count is negative or parallelism is not positive.
+     */
+    public static int[][][][] generateBatch(SudokuLevel level, int count, int parallelism, long seed, boolean rated) {
+        if (count < 0) throw new IllegalArgumentException("count " + count);
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism " + parallelism);
+
+        int[][][][] batch = new int[count][][][];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new BatchTask(level, batch, 0, count, seed, rated));
+        } finally {
+            pool.shutdown();
         }
+        return batch;
+    }
 
-        // Generate the base matrix
-        int[][][] matrix = convertStringToIntMatrix(representationString);
+    /**
+     * Fork/join task generating the puzzles with indices [from, to) of a batch.
+     */
+    private static class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SudokuLevel level;
+        private final int[][][][] batch;
+        private final int from;
+        private final int to;
+        private final long seed;
+        private final boolean rated;
 
-        Random rand = new Random();
-        // Perform multiple random operations for better variation
-        for (int i = 0; i < 10; i++) {  // Increase the number of random operations
-            int randomChoice = rand.nextInt(2);  // Random choice between 4 operations
-
-            switch (randomChoice) {
-                case 0:  // Swap numbers
-                    int num1 = 1 + rand.nextInt(9);  // Random number between 1 and 9
-                    int num2 = 1 + rand.nextInt(9);
-                    matrix = swapMatrix(matrix, num1, num2);
-                    break;
-                case 1:  // Vertical flip
-                    matrix = verticalMatrix(matrix);
-                    break;
+        BatchTask(SudokuLevel level, int[][][][] batch, int from, int to, long seed, boolean rated) {
+            this.level = level;
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+            this.rated = rated;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BATCH_LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BatchTask(level, batch, from, middle, seed, rated),
+                        new BatchTask(level, batch, middle, to, seed, rated));
+                return;
+            }
+            BitmaskSolver solver = new BitmaskSolver();  // Shared by all puzzles of this leaf
+            for (int i = from; i < to; i++) {
+                SplittableRandom random = new SplittableRandom(mix(seed ^ i));
+                SudokuGenerator generator = new SudokuGenerator(solver, random);
+                batch[i] = rated ? generator.generateRatedMatrix(level) : generator.generateMatrix(level);
             }
         }
+    }
 
-        return matrix;
+    /**
+     * Scrambles a seed with the MurmurHash3 finalizer. Seeds one apart, or one SplittableRandom gamma apart,
+     * give unrelated starting states, so the random sources of neighbouring batch indices do not overlap.
+     *
+     * @param seed The seed to scramble.
+     * @return The scrambled seed.
+     */
+    static long mix(long seed) {
+        seed = (seed ^ (seed >>> 33)) * 0xFF51AFD7ED558CCDL;
+        seed = (seed ^ (seed >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return seed ^ (seed >>> 33);
+    }
+
+    /**
+     * Generates a Sudoku matrix by randomly varying one of the predefined puzzles for the difficulty level.
+     * This needs no search and is much cheaper than generateRandomSudokuMatrix, but only produces
+     * variations of three puzzles.
+     *
+     * @param level The level of difficulty (EASY, MEDIUM, HARD).
+     * @return A 3-dimensional int matrix representing the Sudoku puzzle and its solution.
+     *         [row][col][0] contains the initial values (0 represents an empty cell).
+     *         [row][col][1] contains the solution.
+     */
+    public static int[][][] generatePredefinedSudokuMatrix(SudokuLevel level) {
+        return generatePredefinedSudokuView(level).toMatrix();
+    }
+
+    /**
+     * Gets one of the predefined puzzles for the difficulty level through a random symmetry transform.
+     * The view shares the predefined puzzle instead of copying it, and the transform is drawn from the whole
+     * Sudoku symmetry group, so every call is very likely to give a different game.
+     *
+     * @param level The level of difficulty (EASY, MEDIUM, HARD).
+     * @return A view of the transformed puzzle and its solution.
+     */
+    public static SudokuPuzzleView generatePredefinedSudokuView(SudokuLevel level) {
+        SudokuTransform transform = SudokuTransform.random(ThreadLocalRandom.current());
+        return PREDEFINED_VIEWS[level.ordinal()].withTransform(transform);
     }
 
     /**
@@ -75,6 +193,19 @@ public class SudokuUtilities {
         return mirroredMatrix;  // Return the mirrored matrix
     }
 
+    /**
+     * Transforms a Sudoku matrix into the canonical form of its puzzle, so that puzzles that are the same
+     * up to symmetry give identical matrices. The solution values are transformed along with the puzzle.
+     *
+     * @param matrix The Sudoku matrix.
+     * @return A new Sudoku matrix in canonical form.
+     */
+    public static int[][][] canonicalSudokuMatrix(int[][][] matrix) {
+        int[] puzzle = toCellArray(matrix, 0);
+        SudokuTransform transform = SudokuCanonicalizer.canonicalTransform(puzzle);
+        return new SudokuPuzzleView(puzzle, toCellArray(matrix, 1), transform).toMatrix();
+    }
+
     /**
      * Swaps all occurrences of two specified numbers within the given Sudoku matrix.
      *
@@ -113,7 +244,7 @@ public class SudokuUtilities {
      * @return A 3-dimensional int matrix: [row][col][0] for initial values, [row][col][1] for solution values.
      * @throws IllegalArgumentException If the length of stringRepresentation is not 162 characters, or contains characters other than '0'-'9'.
      */
-    static int[][][] convertStringToIntMatrix(String stringRepresentation) {
+    public static int[][][] convertStringToIntMatrix(String stringRepresentation) {
         if (stringRepresentation.length() != GRID_SIZE * GRID_SIZE * 2)
             throw new IllegalArgumentException("representation length " +
                     stringRepresentation.length());
@@ -136,6 +267,110 @@ public class SudokuUtilities {
         return values;
     }
 
+    /**
+     * Checks whether every cell of the matrix has a solution value.
+     *
+     * @param matrix A Sudoku matrix where [row][col][1], if present, contains the solution values.
+     * @return True if all solution values are present and non-zero, false otherwise.
+     */
+    public static boolean hasSolutionValues(int[][][] matrix) {
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                if (matrix[row][col].length < 2 || matrix[row][col][1] == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Solves the initial values of a Sudoku matrix with the bitmask engine.
+     *
+     * @param matrix A Sudoku matrix where [row][col][0] contains the initial values (0 represents an empty cell).
+     * @return A new 3-dimensional int matrix: [row][col][0] for initial values, [row][col][1] for solution values.
+     * @throws IllegalArgumentException If the puzzle has no solution.
+     */
+    public static int[][][] solveSudokuMatrix(int[][][] matrix) {
+        return solveSudokuMatrix(matrix, SudokuSolver.Engine.BITMASK);
+    }
+
+    /**
+     * Solves the initial values of a Sudoku matrix and returns a matrix with the solution filled in.
+     *
+     * @param matrix A Sudoku matrix where [row][col][0] contains the initial values (0 represents an empty cell).
+     *               Any solution values already present are ignored.
+     * @param engine The solving engine to use.
+     * @return A new 3-dimensional int matrix: [row][col][0] for initial values, [row][col][1] for solution values.
+     * @throws IllegalArgumentException If the puzzle has no solution.
+     */
+    public static int[][][] solveSudokuMatrix(int[][][] matrix, SudokuSolver.Engine engine) {
+        int[] cells = toCellArray(matrix, 0);
+        if (!engine.newSolver().solve(cells)) {
+            throw new IllegalArgumentException("puzzle has no solution");
+        }
+        int[][][] solved = new int[GRID_SIZE][GRID_SIZE][2];
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                solved[row][col][0] = matrix[row][col][0];
+                solved[row][col][1] = cells[row * GRID_SIZE + col];
+            }
+        }
+        return solved;
+    }
+
+    /**
+     * Counts the solutions of the initial values of a Sudoku matrix, stopping at the given limit.
+     *
+     * @param matrix A Sudoku matrix where [row][col][0] contains the initial values (0 represents an empty cell).
+     * @param limit  The maximum number of solutions to look for; 2 is enough to check uniqueness.
+     * @param engine The solving engine to use.
+     * @return The number of solutions found, at most limit.
+     */
+    public static int countSolutions(int[][][] matrix, int limit, SudokuSolver.Engine engine) {
+        return engine.newSolver().countSolutions(toCellArray(matrix, 0), limit);
+    }
+
+    /**
+     * Builds a 3-dimensional Sudoku matrix from initial values and solution values in row-major order.
+     *
+     * @param puzzle   81 initial values (0 represents an empty cell).
+     * @param solution 81 solution values.
+     * @return A 3-dimensional int matrix: [row][col][0] for initial values, [row][col][1] for solution values.
+     */
+    static int[][][] toMatrix(int[] puzzle, int[] solution) {
+        int[][][] matrix = new int[GRID_SIZE][GRID_SIZE][2];
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                matrix[row][col][0] = puzzle[row * GRID_SIZE + col];
+                matrix[row][col][1] = solution[row * GRID_SIZE + col];
+            }
+        }
+        return matrix;
+    }
+
+    private static SudokuPuzzleView predefinedView(String representationString) {
+        int[][][] matrix = convertStringToIntMatrix(representationString);
+        return new SudokuPuzzleView(toCellArray(matrix, 0), toCellArray(matrix, 1), SudokuTransform.IDENTITY);
+    }
+
+    /**
+     * Flattens one layer of a Sudoku matrix into 81 cell values in row-major order.
+     *
+     * @param matrix The Sudoku matrix.
+     * @param layer  0 for the initial values, 1 for the solution values.
+     * @return An array of 81 cell values.
+     */
+    static int[] toCellArray(int[][][] matrix, int layer) {
+        int[] cells = new int[GRID_SIZE * GRID_SIZE];
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                cells[row * GRID_SIZE + col] = matrix[row][col][layer];
+            }
+        }
+        return cells;
+    }
+
     /**
      * Converts a character to a Sudoku integer value (0-9).
      *
@@ -206,4 +441,9 @@ public class SudokuUtilities {
                     "693452781" +
                     "154873269" +
                     "728196453";
+
+    /** The predefined puzzles parsed once, indexed by SudokuLevel ordinal */
+    private static final SudokuPuzzleView[] PREDEFINED_VIEWS = {
+            predefinedView(easy), predefinedView(medium), predefinedView(hard)
+    };
 }
\ No newline at end of file
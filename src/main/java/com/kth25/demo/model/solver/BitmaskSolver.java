@@ -0,0 +1,261 @@
+package com.kth25.demo.model.solver;
+
+import com.kth25.demo.metrics.SudokuMetrics;
+import com.kth25.demo.metrics.SudokuSolverEvent;
+
+/**
+ * Sudoku solver working directly on primitive candidate bitmasks.
+ * Every row, column and box keeps a 9-bit mask of the digits already placed in it, so the candidates of a
+ * cell are simply the digits missing from all three masks. The search applies naked and hidden singles until
+ * nothing more can be deduced and then branches on the empty cell with the fewest candidates (MRV).
+ * All scratch state is allocated once per solver instance, so a search allocates nothing per node.
+ * Instances are not thread-safe; use one solver per thread.
+ */
+public class BitmaskSolver implements SudokuSolver {
+    public static final int GRID_SIZE = 9;
+    public static final int CELL_COUNT = GRID_SIZE * GRID_SIZE;
+    public static final int ALL_DIGITS = 0x1FF;  // Bits 0-8 represent the digits 1-9
+
+    /** Row, column and box index of every cell, and the 27 units (9 rows, 9 columns, 9 boxes) as cell lists */
+    static final int[] ROW_OF = new int[CELL_COUNT];
+    static final int[] COL_OF = new int[CELL_COUNT];
+    static final int[] BOX_OF = new int[CELL_COUNT];
+    static final int[][] UNITS = new int[3 * GRID_SIZE][GRID_SIZE];
+
+    static {
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int row = cell / GRID_SIZE;
+            int col = cell % GRID_SIZE;
+            int box = (row / 3) * 3 + col / 3;
+            ROW_OF[cell] = row;
+            COL_OF[cell] = col;
+            BOX_OF[cell] = box;
+            UNITS[row][col] = cell;
+            UNITS[GRID_SIZE + col][row] = cell;
+            UNITS[2 * GRID_SIZE + box][(row % 3) * 3 + col % 3] = cell;
+        }
+    }
+
+    private final int[] grid = new int[CELL_COUNT];      // Current digit of each cell, 0 for empty
+    private final int[] rowUsed = new int[GRID_SIZE];     // Digits placed in each row
+    private final int[] colUsed = new int[GRID_SIZE];     // Digits placed in each column
+    private final int[] boxUsed = new int[GRID_SIZE];     // Digits placed in each box
+    private final int[] trail = new int[CELL_COUNT];     // Cells assigned so far, in order, for undoing
+    private final int[] solution = new int[CELL_COUNT];  // First solution found by the last search
+    private int trailSize;
+    private int solutionCount;
+    private int solutionLimit;
+    private long nodes;
+
+    @Override
+    public boolean solve(int[] cells) {
+        if (countSolutions(cells, 1) == 0) {
+            return false;
+        }
+        System.arraycopy(solution, 0, cells, 0, CELL_COUNT);
+        return true;
+    }
+
+    @Override
+    public int countSolutions(int[] cells, int limit) {
+        nodes = 0;
+        solutionCount = 0;
+        solutionLimit = limit;
+        if (limit <= 0 || !load(cells)) {
+            return 0;
+        }
+        SudokuSolverEvent event = new SudokuSolverEvent();
+        event.begin();
+        search();
+        event.end();
+        SudokuMetrics.SOLVER_SEARCHES.increment();
+        SudokuMetrics.SOLVER_NODES.add(nodes);
+        if (event.shouldCommit()) {  // Only searches over the threshold when recording
+            int givens = 0;
+            for (int value : cells) {
+                if (value != 0) givens++;
+            }
+            event.engine = "bitmask";
+            event.givens = givens;
+            event.limit = limit;
+            event.solutions = solutionCount;
+            event.nodes = nodes;
+            event.commit();
+        }
+        return solutionCount;
+    }
+
+    @Override
+    public void copySolution(int[] target) {
+        System.arraycopy(solution, 0, target, 0, CELL_COUNT);
+    }
+
+    @Override
+    public long getNodesVisited() {
+        return nodes;
+    }
+
+    /**
+     * Loads the givens into the masks.
+     *
+     * @return False if the givens are out of range or already conflict with each other.
+     */
+    private boolean load(int[] cells) {
+        if (cells.length != CELL_COUNT) throw new IllegalArgumentException("cell count " + cells.length);
+        for (int i = 0; i < GRID_SIZE; i++) {
+            rowUsed[i] = 0;
+            colUsed[i] = 0;
+            boxUsed[i] = 0;
+        }
+        trailSize = 0;
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int value = cells[cell];
+            grid[cell] = 0;
+            if (value == 0) {
+                continue;
+            }
+            if (value < 1 || value > GRID_SIZE) throw new IllegalArgumentException("value " + value);
+            int bit = 1 << (value - 1);
+            if (((rowUsed[ROW_OF[cell]] | colUsed[COL_OF[cell]] | boxUsed[BOX_OF[cell]]) & bit) != 0) {
+                return false;  // The same digit is given twice in a unit
+            }
+            assign(cell, value);
+        }
+        trailSize = 0;  // Givens are never undone
+        return true;
+    }
+
+    private void search() {
+        nodes++;
+        int mark = trailSize;
+        if (!propagate()) {
+            undoTo(mark);
+            return;
+        }
+
+        // Pick the empty cell with the fewest candidates
+        int bestCell = -1;
+        int bestCount = GRID_SIZE + 1;
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            if (grid[cell] == 0) {
+                int count = Integer.bitCount(candidates(cell));
+                if (count < bestCount) {
+                    bestCount = count;
+                    bestCell = cell;
+                    if (count == 2) {
+                        break;  // Propagation has removed all singles, so two is the minimum
+                    }
+                }
+            }
+        }
+
+        if (bestCell < 0) {
+            // No empty cells left: the grid is solved
+            if (solutionCount++ == 0) {
+                System.arraycopy(grid, 0, solution, 0, CELL_COUNT);
+            }
+            undoTo(mark);
+            return;
+        }
+
+        int remaining = candidates(bestCell);
+        while (remaining != 0 && solutionCount < solutionLimit) {
+            int bit = remaining & -remaining;
+            remaining ^= bit;
+            int branchMark = trailSize;
+            assign(bestCell, Integer.numberOfTrailingZeros(bit) + 1);
+            search();
+            undoTo(branchMark);
+        }
+        undoTo(mark);
+    }
+
+    /**
+     * Repeatedly places naked and hidden singles until no more can be found.
+     *
+     * @return False if a contradiction was found.
+     */
+    private boolean propagate() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            // Naked singles: cells with exactly one candidate
+            for (int cell = 0; cell < CELL_COUNT; cell++) {
+                if (grid[cell] != 0) {
+                    continue;
+                }
+                int cand = candidates(cell);
+                if (cand == 0) {
+                    return false;
+                }
+                if ((cand & (cand - 1)) == 0) {
+                    assign(cell, Integer.numberOfTrailingZeros(cand) + 1);
+                    changed = true;
+                }
+            }
+
+            // Hidden singles: digits that fit in only one cell of a unit
+            for (int unit = 0; unit < UNITS.length; unit++) {
+                int[] unitCells = UNITS[unit];
+                int once = 0;
+                int twice = 0;
+                for (int i = 0; i < GRID_SIZE; i++) {
+                    int cell = unitCells[i];
+                    if (grid[cell] == 0) {
+                        int cand = candidates(cell);
+                        twice |= once & cand;
+                        once |= cand;
+                    }
+                }
+                if ((once | unitUsed(unit)) != ALL_DIGITS) {
+                    return false;  // Some digit has no place left in this unit
+                }
+                int hidden = once & ~twice;
+                while (hidden != 0) {
+                    int bit = hidden & -hidden;
+                    hidden ^= bit;
+                    for (int i = 0; i < GRID_SIZE; i++) {
+                        int cell = unitCells[i];
+                        if (grid[cell] == 0 && (candidates(cell) & bit) != 0) {
+                            assign(cell, Integer.numberOfTrailingZeros(bit) + 1);
+                            changed = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private int candidates(int cell) {
+        return ~(rowUsed[ROW_OF[cell]] | colUsed[COL_OF[cell]] | boxUsed[BOX_OF[cell]]) & ALL_DIGITS;
+    }
+
+    private int unitUsed(int unit) {
+        if (unit < GRID_SIZE) return rowUsed[unit];
+        if (unit < 2 * GRID_SIZE) return colUsed[unit - GRID_SIZE];
+        return boxUsed[unit - 2 * GRID_SIZE];
+    }
+
+    private void assign(int cell, int digit) {
+        int bit = 1 << (digit - 1);
+        grid[cell] = digit;
+        rowUsed[ROW_OF[cell]] |= bit;
+        colUsed[COL_OF[cell]] |= bit;
+        boxUsed[BOX_OF[cell]] |= bit;
+        trail[trailSize++] = cell;
+    }
+
+    private void undoTo(int mark) {
+        while (trailSize > mark) {
+            int cell = trail[--trailSize];
+            int mask = ~(1 << (grid[cell] - 1));
+            rowUsed[ROW_OF[cell]] &= mask;
+            colUsed[COL_OF[cell]] &= mask;
+            boxUsed[BOX_OF[cell]] &= mask;
+            grid[cell] = 0;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.kth25.demo.model.solver;
+
+import com.kth25.demo.metrics.SudokuMetrics;
+import com.kth25.demo.metrics.SudokuSolverEvent;
+
+/**
+ * Sudoku solver using Knuth's Algorithm X on a Dancing Links exact-cover matrix.
+ * The 729 candidate rows (cell, digit) and 324 constraint columns (cell filled, digit in row,
+ * digit in column, digit in box) are built once per solver instance in plain int arrays, so nodes
+ * are array indices rather than objects. Givens are covered before the search and uncovered
+ * afterwards, which leaves the matrix ready for the next puzzle without rebuilding it.
+ * Instances are not thread-safe; use one solver per thread.
+ */
+public class DancingLinksSolver implements SudokuSolver {
+    private static final int GRID_SIZE = BitmaskSolver.GRID_SIZE;
+    private static final int CELL_COUNT = BitmaskSolver.CELL_COUNT;
+    private static final int COLUMN_COUNT = 4 * CELL_COUNT;           // 324 constraints
+    private static final int ROW_COUNT = CELL_COUNT * GRID_SIZE;      // 729 candidates
+    private static final int ROOT = 0;
+    private static final int FIRST_NODE = COLUMN_COUNT + 1;           // Headers occupy 0..324
+    private static final int NODE_COUNT = FIRST_NODE + 4 * ROW_COUNT;
+
+    private final int[] left = new int[NODE_COUNT];
+    private final int[] right = new int[NODE_COUNT];
+    private final int[] up = new int[NODE_COUNT];
+    private final int[] down = new int[NODE_COUNT];
+    private final int[] column = new int[NODE_COUNT];      // Column header of each node
+    private final int[] size = new int[COLUMN_COUNT + 1];  // Number of rows left in each column
+
+    private final int[] givenRows = new int[CELL_COUNT];   // First node of each given's row
+    private final int[] chosenRows = new int[CELL_COUNT];  // First node of each row chosen by the search
+    private final int[] givens = new int[CELL_COUNT];
+    private final int[] solution = new int[CELL_COUNT];
+    private final int[] rowUsed = new int[GRID_SIZE];
+    private final int[] colUsed = new int[GRID_SIZE];
+    private final int[] boxUsed = new int[GRID_SIZE];
+    private int solutionCount;
+    private int solutionLimit;
+    private long nodes;
+
+    /**
+     * Constructs a solver and builds its exact-cover matrix.
+     */
+    public DancingLinksSolver() {
+        // Column headers in a circular list around the root
+        for (int c = 0; c <= COLUMN_COUNT; c++) {
+            left[c] = c == 0 ? COLUMN_COUNT : c - 1;
+            right[c] = c == COLUMN_COUNT ? 0 : c + 1;
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+        }
+
+        // Four nodes per candidate row, stored contiguously so a node maps back to its row by division
+        for (int row = 0; row < ROW_COUNT; row++) {
+            int cell = row / GRID_SIZE;
+            int digit = row % GRID_SIZE;
+            int r = BitmaskSolver.ROW_OF[cell];
+            int c = BitmaskSolver.COL_OF[cell];
+            int b = BitmaskSolver.BOX_OF[cell];
+            int first = FIRST_NODE + 4 * row;
+            appendNode(first, 1 + cell);
+            appendNode(first + 1, 1 + CELL_COUNT + r * GRID_SIZE + digit);
+            appendNode(first + 2, 1 + 2 * CELL_COUNT + c * GRID_SIZE + digit);
+            appendNode(first + 3, 1 + 3 * CELL_COUNT + b * GRID_SIZE + digit);
+            for (int i = 0; i < 4; i++) {
+                left[first + i] = first + (i + 3) % 4;
+                right[first + i] = first + (i + 1) % 4;
+            }
+        }
+    }
+
+    @Override
+    public boolean solve(int[] cells) {
+        if (countSolutions(cells, 1) == 0) {
+            return false;
+        }
+        System.arraycopy(solution, 0, cells, 0, CELL_COUNT);
+        return true;
+    }
+
+    @Override
+    public int countSolutions(int[] cells, int limit) {
+        nodes = 0;
+        solutionCount = 0;
+        solutionLimit = limit;
+        if (limit <= 0) {
+            return 0;
+        }
+        int givenCount = loadGivens(cells);
+        if (givenCount < 0) {
+            return 0;
+        }
+
+        SudokuSolverEvent event = new SudokuSolverEvent();
+        event.begin();
+        for (int i = 0; i < givenCount; i++) {
+            coverRow(givenRows[i]);
+        }
+        search(0);
+        event.end();
+        SudokuMetrics.SOLVER_SEARCHES.increment();
+        SudokuMetrics.SOLVER_NODES.add(nodes);
+        if (event.shouldCommit()) {  // Only searches over the threshold when recording
+            event.engine = "dancingLinks";
+            event.givens = givenCount;
+            event.limit = limit;
+            event.solutions = solutionCount;
+            event.nodes = nodes;
+            event.commit();
+        }
+        for (int i = givenCount - 1; i >= 0; i--) {
+            uncoverRow(givenRows[i]);
+        }
+        return solutionCount;
+    }
+
+    @Override
+    public void copySolution(int[] target) {
+        System.arraycopy(solution, 0, target, 0, CELL_COUNT);
+    }
+
+    @Override
+    public long getNodesVisited() {
+        return nodes;
+    }
+
+    /**
+     * Validates the givens and records their matrix rows.
+     *
+     * @return The number of givens, or -1 if two givens conflict.
+     */
+    private int loadGivens(int[] cells) {
+        if (cells.length != CELL_COUNT) throw new IllegalArgumentException("cell count " + cells.length);
+        for (int i = 0; i < GRID_SIZE; i++) {
+            rowUsed[i] = 0;
+            colUsed[i] = 0;
+            boxUsed[i] = 0;
+        }
+        int count = 0;
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int value = cells[cell];
+            givens[cell] = value;
+            if (value == 0) {
+                continue;
+            }
+            if (value < 1 || value > GRID_SIZE) throw new IllegalArgumentException("value " + value);
+            int bit = 1 << (value - 1);
+            int r = BitmaskSolver.ROW_OF[cell];
+            int c = BitmaskSolver.COL_OF[cell];
+            int b = BitmaskSolver.BOX_OF[cell];
+            if (((rowUsed[r] | colUsed[c] | boxUsed[b]) & bit) != 0) {
+                return -1;  // Covering a column twice would corrupt the links
+            }
+            rowUsed[r] |= bit;
+            colUsed[c] |= bit;
+            boxUsed[b] |= bit;
+            givenRows[count++] = FIRST_NODE + 4 * (cell * GRID_SIZE + value - 1);
+        }
+        return count;
+    }
+
+    private void search(int depth) {
+        nodes++;
+        if (right[ROOT] == ROOT) {
+            // Every constraint is satisfied
+            if (solutionCount++ == 0) {
+                recordSolution(depth);
+            }
+            return;
+        }
+
+        // Choose the column with the fewest remaining rows
+        int best = right[ROOT];
+        for (int c = right[best]; c != ROOT && size[best] > 1; c = right[c]) {
+            if (size[c] < size[best]) {
+                best = c;
+            }
+        }
+        if (size[best] == 0) {
+            return;
+        }
+
+        cover(best);
+        for (int r = down[best]; r != best && solutionCount < solutionLimit; r = down[r]) {
+            chosenRows[depth] = r;
+            for (int j = right[r]; j != r; j = right[j]) {
+                cover(column[j]);
+            }
+            search(depth + 1);
+            for (int j = left[r]; j != r; j = left[j]) {
+                uncover(column[j]);
+            }
+        }
+        uncover(best);
+    }
+
+    private void recordSolution(int depth) {
+        System.arraycopy(givens, 0, solution, 0, CELL_COUNT);
+        for (int i = 0; i < depth; i++) {
+            int row = (chosenRows[i] - FIRST_NODE) / 4;
+            solution[row / GRID_SIZE] = row % GRID_SIZE + 1;
+        }
+    }
+
+    private void appendNode(int node, int header) {
+        column[node] = header;
+        up[node] = up[header];
+        down[node] = header;
+        down[up[header]] = node;
+        up[header] = node;
+        size[header]++;
+    }
+
+    private void coverRow(int first) {
+        for (int i = 0; i < 4; i++) {
+            cover(column[first + i]);
+        }
+    }
+
+    private void uncoverRow(int first) {
+        for (int i = 3; i >= 0; i--) {
+            uncover(column[first + i]);
+        }
+    }
+
+    private void cover(int c) {
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+}
@@ -0,0 +1,586 @@
+package com.kth25.demo.model.solver;
+
+import static com.kth25.demo.model.solver.BitmaskSolver.ALL_DIGITS;
+import static com.kth25.demo.model.solver.BitmaskSolver.BOX_OF;
+import static com.kth25.demo.model.solver.BitmaskSolver.CELL_COUNT;
+import static com.kth25.demo.model.solver.BitmaskSolver.COL_OF;
+import static com.kth25.demo.model.solver.BitmaskSolver.GRID_SIZE;
+import static com.kth25.demo.model.solver.BitmaskSolver.ROW_OF;
+import static com.kth25.demo.model.solver.BitmaskSolver.UNITS;
+
+/**
+ * Solves Sudoku puzzles step by step with techniques a human would use, easiest first, and rates a
+ * puzzle by the hardest technique it needs and the number of steps. Candidates are kept as one 9-bit
+ * mask per cell and all scratch state is allocated once per instance, so rating a puzzle allocates
+ * nothing but the returned Rating. Instances are not thread-safe; use one solver per thread.
+ */
+public class HumanSolver {
+
+    /** The techniques in the order they are tried, from easiest to hardest */
+    public enum Technique {
+        HIDDEN_SINGLE(1),
+        NAKED_SINGLE(2),
+        LOCKED_CANDIDATES(4),
+        NAKED_PAIR(6),
+        HIDDEN_PAIR(8),
+        X_WING(12),
+        SWORDFISH(16),
+        SIMPLE_COLORING(20),
+        /** None of the techniques applies; the puzzle needs trial and error */
+        BACKTRACKING(50);
+
+        private final int weight;
+
+        Technique(int weight) {
+            this.weight = weight;
+        }
+
+        /**
+         * Gets how much one step with this technique adds to a puzzle's score.
+         *
+         * @return The weight of the technique.
+         */
+        public int getWeight() {
+            return weight;
+        }
+    }
+
+    /**
+     * The result of rating a puzzle.
+     */
+    public static final class Rating {
+        private final Technique hardest;
+        private final int steps;
+        private final int score;
+
+        Rating(Technique hardest, int steps, int score) {
+            this.hardest = hardest;
+            this.steps = steps;
+            this.score = score;
+        }
+
+        /**
+         * Gets the hardest technique needed to solve the puzzle.
+         *
+         * @return The hardest technique, BACKTRACKING if the techniques were not enough.
+         */
+        public Technique getHardest() {
+            return hardest;
+        }
+
+        /**
+         * Gets the number of technique steps taken before the puzzle was solved or got stuck.
+         *
+         * @return The number of steps.
+         */
+        public int getSteps() {
+            return steps;
+        }
+
+        /**
+         * Gets the sum of the weights of all steps, including BACKTRACKING if the solver got stuck.
+         *
+         * @return The score; higher is harder.
+         */
+        public int getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return hardest + " in " + steps + " steps, score " + score;
+        }
+    }
+
+    /** The 20 cells that share a row, column or box with each cell */
+    static final int[][] PEERS = new int[CELL_COUNT][20];
+
+    static {
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int count = 0;
+            for (int other = 0; other < CELL_COUNT; other++) {
+                if (other != cell && sees(cell, other)) {
+                    PEERS[cell][count++] = other;
+                }
+            }
+        }
+    }
+
+    private final int[] grid = new int[CELL_COUNT];
+    private final int[] candidates = new int[CELL_COUNT];
+    private final int[] lineMasks = new int[GRID_SIZE];     // Fish: positions of a digit in each line
+    private final int[] unitCounts = new int[UNITS.length]; // Coloring: positions of a digit in each unit
+    private final int[] color = new int[CELL_COUNT];        // Coloring: 0 uncolored, otherwise 1 or 2
+    private final int[] members = new int[CELL_COUNT];      // Coloring: cells of the current chain
+    private int filled;
+    private int lastCell = -1;
+    private int lastDigit;
+
+    /**
+     * Rates a puzzle by solving it with the technique ladder.
+     *
+     * @param cells 81 cell values in row-major order, 0 for empty cells. Not modified.
+     * @return The rating. Puzzles whose givens conflict are rated BACKTRACKING with no steps.
+     */
+    public Rating rate(int[] cells) {
+        if (!load(cells)) {
+            return new Rating(Technique.BACKTRACKING, 0, Technique.BACKTRACKING.getWeight());
+        }
+        Technique hardest = Technique.HIDDEN_SINGLE;
+        int steps = 0;
+        int score = 0;
+        while (!isSolved()) {
+            Technique technique = step();
+            if (technique == null) {
+                hardest = Technique.BACKTRACKING;
+                score += Technique.BACKTRACKING.getWeight();
+                break;
+            }
+            steps++;
+            score += technique.getWeight();
+            if (technique.compareTo(hardest) > 0) {
+                hardest = technique;
+            }
+        }
+        return new Rating(hardest, steps, score);
+    }
+
+    /**
+     * Loads a puzzle and computes the candidates of every empty cell.
+     *
+     * @param cells 81 cell values in row-major order, 0 for empty cells. Not modified.
+     * @return False if the givens conflict with each other.
+     */
+    public boolean load(int[] cells) {
+        if (cells.length != CELL_COUNT) throw new IllegalArgumentException("cell count " + cells.length);
+        filled = 0;
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            grid[cell] = 0;
+            candidates[cell] = ALL_DIGITS;
+        }
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int value = cells[cell];
+            if (value == 0) {
+                continue;
+            }
+            if (value < 1 || value > GRID_SIZE) throw new IllegalArgumentException("value " + value);
+            if ((candidates[cell] & (1 << (value - 1))) == 0) {
+                return false;
+            }
+            place(cell, value);
+        }
+        lastCell = -1;
+        lastDigit = 0;
+        return true;
+    }
+
+    /**
+     * Applies the easiest technique that makes progress, once.
+     * A single step places one digit or removes one or more candidates.
+     *
+     * @return The technique used, or null if the puzzle is solved or none of the techniques applies.
+     */
+    public Technique step() {
+        lastCell = -1;
+        lastDigit = 0;
+        if (isSolved()) return null;
+        if (hiddenSingle()) return Technique.HIDDEN_SINGLE;
+        if (nakedSingle()) return Technique.NAKED_SINGLE;
+        if (lockedCandidates()) return Technique.LOCKED_CANDIDATES;
+        if (nakedPair()) return Technique.NAKED_PAIR;
+        if (hiddenPair()) return Technique.HIDDEN_PAIR;
+        if (fish(2)) return Technique.X_WING;
+        if (fish(3)) return Technique.SWORDFISH;
+        if (simpleColoring()) return Technique.SIMPLE_COLORING;
+        return null;
+    }
+
+    /**
+     * Checks whether every cell is filled.
+     *
+     * @return True if the puzzle is solved.
+     */
+    public boolean isSolved() {
+        return filled == CELL_COUNT;
+    }
+
+    /**
+     * Gets the cell placed by the last step.
+     *
+     * @return The cell index, or -1 if the last step only removed candidates.
+     */
+    public int getLastCell() {
+        return lastCell;
+    }
+
+    /**
+     * Gets the digit placed by the last step.
+     *
+     * @return The digit, or 0 if the last step only removed candidates.
+     */
+    public int getLastDigit() {
+        return lastDigit;
+    }
+
+    /**
+     * Gets the remaining candidates of a cell.
+     *
+     * @param cell The cell index (0-80).
+     * @return A 9-bit mask where bit d - 1 is set if d is still a candidate; 0 for filled cells.
+     */
+    public int getCandidates(int cell) {
+        return candidates[cell];
+    }
+
+    private boolean hiddenSingle() {
+        for (int[] unit : UNITS) {
+            int once = 0;
+            int twice = 0;
+            for (int cell : unit) {
+                twice |= once & candidates[cell];
+                once |= candidates[cell];
+            }
+            int hidden = once & ~twice;
+            if (hidden != 0) {
+                int bit = hidden & -hidden;
+                for (int cell : unit) {
+                    if ((candidates[cell] & bit) != 0) {
+                        place(cell, Integer.numberOfTrailingZeros(bit) + 1);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean nakedSingle() {
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int cand = candidates[cell];
+            if (grid[cell] == 0 && cand != 0 && (cand & (cand - 1)) == 0) {
+                place(cell, Integer.numberOfTrailingZeros(cand) + 1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pointing (a digit confined to one line within a box) and claiming (a digit confined to one box within a line).
+     */
+    private boolean lockedCandidates() {
+        for (int digit = 0; digit < GRID_SIZE; digit++) {
+            int bit = 1 << digit;
+            // Pointing
+            for (int box = 0; box < GRID_SIZE; box++) {
+                int rows = 0;
+                int cols = 0;
+                for (int cell : UNITS[2 * GRID_SIZE + box]) {
+                    if ((candidates[cell] & bit) != 0) {
+                        rows |= 1 << ROW_OF[cell];
+                        cols |= 1 << COL_OF[cell];
+                    }
+                }
+                if (rows == 0) {
+                    continue;
+                }
+                if (Integer.bitCount(rows) == 1
+                        && eliminateOutsideBox(UNITS[Integer.numberOfTrailingZeros(rows)], box, bit)) {
+                    return true;
+                }
+                if (Integer.bitCount(cols) == 1
+                        && eliminateOutsideBox(UNITS[GRID_SIZE + Integer.numberOfTrailingZeros(cols)], box, bit)) {
+                    return true;
+                }
+            }
+            // Claiming
+            for (int line = 0; line < 2 * GRID_SIZE; line++) {
+                int boxes = 0;
+                for (int cell : UNITS[line]) {
+                    if ((candidates[cell] & bit) != 0) {
+                        boxes |= 1 << BOX_OF[cell];
+                    }
+                }
+                if (Integer.bitCount(boxes) != 1) {
+                    continue;
+                }
+                boolean changed = false;
+                for (int cell : UNITS[2 * GRID_SIZE + Integer.numberOfTrailingZeros(boxes)]) {
+                    if (!inUnit(cell, line)) {
+                        changed |= eliminate(cell, bit);
+                    }
+                }
+                if (changed) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean nakedPair() {
+        for (int[] unit : UNITS) {
+            for (int i = 0; i < GRID_SIZE; i++) {
+                int pair = candidates[unit[i]];
+                if (Integer.bitCount(pair) != 2) {
+                    continue;
+                }
+                for (int j = i + 1; j < GRID_SIZE; j++) {
+                    if (candidates[unit[j]] != pair) {
+                        continue;
+                    }
+                    boolean changed = false;
+                    for (int k = 0; k < GRID_SIZE; k++) {
+                        if (k != i && k != j) {
+                            changed |= eliminate(unit[k], pair);
+                        }
+                    }
+                    if (changed) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean hiddenPair() {
+        for (int[] unit : UNITS) {
+            for (int d1 = 0; d1 < GRID_SIZE; d1++) {
+                int positions = positionsInUnit(unit, 1 << d1);
+                if (Integer.bitCount(positions) != 2) {
+                    continue;
+                }
+                for (int d2 = d1 + 1; d2 < GRID_SIZE; d2++) {
+                    if (positionsInUnit(unit, 1 << d2) != positions) {
+                        continue;
+                    }
+                    int pair = (1 << d1) | (1 << d2);
+                    boolean changed = false;
+                    for (int i = 0; i < GRID_SIZE; i++) {
+                        if ((positions & (1 << i)) != 0) {
+                            changed |= eliminate(unit[i], ~pair & ALL_DIGITS);
+                        }
+                    }
+                    if (changed) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * X-Wing (size 2) and Swordfish (size 3): a digit confined to the same size cross lines in size base lines
+     * can be removed from those cross lines everywhere else. Both rows and columns are tried as base lines.
+     */
+    private boolean fish(int size) {
+        for (int digit = 0; digit < GRID_SIZE; digit++) {
+            int bit = 1 << digit;
+            for (int orientation = 0; orientation < 2; orientation++) {
+                int baseOffset = orientation * GRID_SIZE;
+                for (int line = 0; line < GRID_SIZE; line++) {
+                    lineMasks[line] = positionsInUnit(UNITS[baseOffset + line], bit);
+                }
+                for (int a = 0; a < GRID_SIZE; a++) {
+                    if (!fishLine(lineMasks[a], size)) continue;
+                    for (int b = a + 1; b < GRID_SIZE; b++) {
+                        if (!fishLine(lineMasks[b], size)) continue;
+                        if (size == 2) {
+                            int cover = lineMasks[a] | lineMasks[b];
+                            if (Integer.bitCount(cover) == 2
+                                    && eliminateFish(baseOffset, cover, (1 << a) | (1 << b), bit)) {
+                                return true;
+                            }
+                            continue;
+                        }
+                        for (int c = b + 1; c < GRID_SIZE; c++) {
+                            if (!fishLine(lineMasks[c], size)) continue;
+                            int cover = lineMasks[a] | lineMasks[b] | lineMasks[c];
+                            if (Integer.bitCount(cover) == 3
+                                    && eliminateFish(baseOffset, cover, (1 << a) | (1 << b) | (1 << c), bit)) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean fishLine(int mask, int size) {
+        int count = Integer.bitCount(mask);
+        return count >= 2 && count <= size;
+    }
+
+    private boolean eliminateFish(int baseOffset, int coverLines, int baseLines, int bit) {
+        int crossOffset = GRID_SIZE - baseOffset;  // Rows as base lines means columns as cross lines and vice versa
+        boolean changed = false;
+        for (int cross = 0; cross < GRID_SIZE; cross++) {
+            if ((coverLines & (1 << cross)) == 0) {
+                continue;
+            }
+            int[] unit = UNITS[crossOffset + cross];
+            for (int i = 0; i < GRID_SIZE; i++) {
+                if ((baseLines & (1 << i)) == 0) {
+                    changed |= eliminate(unit[i], bit);
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Simple coloring: follows chains of conjugate pairs (the only two places for a digit in a unit),
+     * alternating two colors. If two cells of the same color see each other, that color is false;
+     * a cell seeing both colors cannot hold the digit.
+     */
+    private boolean simpleColoring() {
+        for (int digit = 0; digit < GRID_SIZE; digit++) {
+            int bit = 1 << digit;
+            for (int unit = 0; unit < UNITS.length; unit++) {
+                unitCounts[unit] = Integer.bitCount(positionsInUnit(UNITS[unit], bit));
+            }
+            for (int cell = 0; cell < CELL_COUNT; cell++) {
+                color[cell] = 0;
+            }
+            for (int start = 0; start < CELL_COUNT; start++) {
+                if ((candidates[start] & bit) == 0 || color[start] != 0) {
+                    continue;
+                }
+                int size = colorChain(start, bit);
+                if (size >= 3 && applyColoring(size, bit)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Colors the chain of conjugate pairs containing start, storing its cells in members.
+     *
+     * @return The number of cells in the chain.
+     */
+    private int colorChain(int start, int bit) {
+        int size = 0;
+        members[size++] = start;
+        color[start] = 1;
+        for (int next = 0; next < size; next++) {
+            int cell = members[next];
+            for (int kind = 0; kind < 3; kind++) {
+                int unit = kind == 0 ? ROW_OF[cell]
+                        : kind == 1 ? GRID_SIZE + COL_OF[cell]
+                        : 2 * GRID_SIZE + BOX_OF[cell];
+                if (unitCounts[unit] != 2) {
+                    continue;
+                }
+                for (int other : UNITS[unit]) {
+                    if (other != cell && (candidates[other] & bit) != 0 && color[other] == 0) {
+                        color[other] = 3 - color[cell];
+                        members[size++] = other;
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    private boolean applyColoring(int size, int bit) {
+        // Color wrap: two cells of the same color in one unit
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                if (color[members[i]] == color[members[j]] && sees(members[i], members[j])) {
+                    int falseColor = color[members[i]];
+                    boolean changed = false;
+                    for (int k = 0; k < size; k++) {
+                        if (color[members[k]] == falseColor) {
+                            changed |= eliminate(members[k], bit);
+                        }
+                    }
+                    return changed;
+                }
+            }
+        }
+        // Color trap: a cell outside the chain that sees both colors
+        boolean changed = false;
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            if ((candidates[cell] & bit) == 0 || isMember(cell, size)) {
+                continue;
+            }
+            boolean seesFirst = false;
+            boolean seesSecond = false;
+            for (int k = 0; k < size; k++) {
+                if (sees(cell, members[k])) {
+                    if (color[members[k]] == 1) seesFirst = true;
+                    else seesSecond = true;
+                }
+            }
+            if (seesFirst && seesSecond) {
+                changed |= eliminate(cell, bit);
+            }
+        }
+        return changed;
+    }
+
+    private boolean isMember(int cell, int size) {
+        for (int k = 0; k < size; k++) {
+            if (members[k] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int positionsInUnit(int[] unit, int bit) {
+        int positions = 0;
+        for (int i = 0; i < GRID_SIZE; i++) {
+            if ((candidates[unit[i]] & bit) != 0) {
+                positions |= 1 << i;
+            }
+        }
+        return positions;
+    }
+
+    private boolean eliminateOutsideBox(int[] line, int box, int bit) {
+        boolean changed = false;
+        for (int cell : line) {
+            if (BOX_OF[cell] != box) {
+                changed |= eliminate(cell, bit);
+            }
+        }
+        return changed;
+    }
+
+    private boolean eliminate(int cell, int mask) {
+        if ((candidates[cell] & mask) == 0) {
+            return false;
+        }
+        candidates[cell] &= ~mask;
+        return true;
+    }
+
+    private void place(int cell, int digit) {
+        int bit = 1 << (digit - 1);
+        grid[cell] = digit;
+        candidates[cell] = 0;
+        filled++;
+        for (int peer : PEERS[cell]) {
+            candidates[peer] &= ~bit;
+        }
+        lastCell = cell;
+        lastDigit = digit;
+    }
+
+    private static boolean inUnit(int cell, int unit) {
+        if (unit < GRID_SIZE) return ROW_OF[cell] == unit;
+        if (unit < 2 * GRID_SIZE) return COL_OF[cell] == unit - GRID_SIZE;
+        return BOX_OF[cell] == unit - 2 * GRID_SIZE;
+    }
+
+    private static boolean sees(int a, int b) {
+        return ROW_OF[a] == ROW_OF[b] || COL_OF[a] == COL_OF[b] || BOX_OF[a] == BOX_OF[b];
+    }
+}
@@ -0,0 +1,62 @@
+package com.kth25.demo.model.solver;
+
+/**
+ * Common interface for Sudoku solving engines.
+ * Puzzles are passed as 81 cell values in row-major order, where 0 represents an empty cell.
+ * Implementations keep their scratch state between calls and are not thread-safe.
+ */
+public interface SudokuSolver {
+
+    /** Enum for choosing which solving engine to use */
+    enum Engine {
+        /** Candidate bitmasks with single propagation and MRV backtracking, fastest on ordinary puzzles */
+        BITMASK,
+        /** Dancing Links exact cover, steadier on pathological puzzles that need a lot of backtracking */
+        DANCING_LINKS;
+
+        /**
+         * Creates a new solver instance for this engine.
+         *
+         * @return A new, independent solver.
+         */
+        public SudokuSolver newSolver() {
+            switch (this) {
+                case DANCING_LINKS: return new DancingLinksSolver();
+                default: return new BitmaskSolver();
+            }
+        }
+    }
+
+    /**
+     * Solves the puzzle in place.
+     *
+     * @param cells 81 cell values in row-major order, 0 for empty cells.
+     * @return True if a solution was found and written into cells, false if the puzzle has no solution
+     *         (cells are then left unchanged).
+     */
+    boolean solve(int[] cells);
+
+    /**
+     * Counts the solutions of a puzzle, stopping as soon as the limit is reached.
+     * A limit of 2 is enough to check whether a puzzle has a unique solution.
+     *
+     * @param cells 81 cell values in row-major order, 0 for empty cells. Not modified.
+     * @param limit The maximum number of solutions to look for.
+     * @return The number of solutions found, at most limit.
+     */
+    int countSolutions(int[] cells, int limit);
+
+    /**
+     * Gets the first solution found by the last call to solve or countSolutions.
+     *
+     * @param target An array of at least 81 elements that receives the solution.
+     */
+    void copySolution(int[] target);
+
+    /**
+     * Gets the number of search nodes visited by the last call to solve or countSolutions.
+     *
+     * @return The number of visited nodes.
+     */
+    long getNodesVisited();
+}
@@ -0,0 +1,232 @@
+package com.kth25.demo.server;
+
+
+import com.kth25.demo.model.SudokuMove;
+import com.kth25.demo.model.SudokuUtilities;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Local HTTP front end for a SudokuSessionManager. Every request is handled on its own virtual thread,
+ * which queues a command on the session and waits for its result. Responses are JSON.
+ * <pre>
+ * POST   /sessions?level=EASY                    Start a game, returns the session
+ * GET    /sessions/{id}                          The session's board
+ * POST   /sessions/{id}/move?row=0&amp;col=0&amp;value=5   Enter a value (0 clears the cell); the response
+ *                                                adds a status: accepted, conflicting, wrong,
+ *                                                completed or rejected
+ * POST   /sessions/{id}/undo, /redo, /hint        Undo, redo or fill a random cell
+ * DELETE /sessions/{id}                          End the game
+ * </pre>
+ * Sessions idle for more than 30 minutes are ended.
+ * The JDK server writes headers and body separately, so with Nagle's algorithm on, the client's delayed ACK
+ * stalls every response by about 40 ms. Launch with -Dsun.net.httpserver.nodelay=true; main sets it if unset.
+ * The property is read once per JVM, when the first HTTP server is created, and applies to all of them.
+ */
+public class SudokuHttpServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8080;
+    private static final String SESSIONS_PATH = "/sessions";
+    private static final long IDLE_MINUTES = 30;
+    /** System property turning on TCP_NODELAY for every JDK HTTP server in the process */
+    static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final SudokuSessionManager manager;
+    private final HttpServer server;
+    private final ExecutorService requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService idleSweeper = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * Creates a server bound to an address. It accepts requests once start is called.
+     *
+     * @param manager The sessions to serve.
+     * @param address The address to listen on; port 0 picks a free port.
+     * @throws IOException If the address cannot be bound.
+     */
+    public SudokuHttpServer(SudokuSessionManager manager, InetSocketAddress address) throws IOException {
+        this.manager = manager;
+        this.server = HttpServer.create(address, 0);
+        server.createContext(SESSIONS_PATH, this::handle);
+        server.setExecutor(requestExecutor);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+        idleSweeper.scheduleAtFixedRate(() -> manager.removeIdle(IDLE_MINUTES, TimeUnit.MINUTES),
+                1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return The bound port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests. The session manager is not closed.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        idleSweeper.shutdownNow();
+        requestExecutor.shutdown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().substring(SESSIONS_PATH.length()).split("/");
+            // path[0] is empty; path[1] is the session ID and path[2] the action, if present
+            if (path.length > 0 && !path[0].isEmpty()) {
+                send(exchange, 404, error("no such resource"));  // The context also matches /sessionsXYZ
+                return;
+            }
+            if (path.length <= 1) {
+                if (!method.equals("POST")) {
+                    send(exchange, 405, error("use POST to start a game"));
+                    return;
+                }
+                String level = queryParameter(exchange, "level", "MEDIUM");
+                SudokuSession session = manager.create(SudokuUtilities.SudokuLevel.valueOf(level.toUpperCase(Locale.ROOT))).join();
+                send(exchange, 201, session.submit(SudokuSession::toJson).join());
+                return;
+            }
+            SudokuSession session = manager.get(path[1]);
+            if (session == null || path.length > 3) {
+                send(exchange, 404, error("no such session"));
+                return;
+            }
+            String action = path.length == 3 ? path[2] : "";
+            if (action.isEmpty() && method.equals("GET")) {
+                send(exchange, 200, session.submit(SudokuSession::toJson).join());
+            } else if (action.isEmpty() && method.equals("DELETE")) {
+                manager.remove(session.getId());
+                send(exchange, 200, "{\"id\":\"" + session.getId() + "\",\"ended\":true}");
+            } else if (!method.equals("POST")) {
+                send(exchange, 405, error("use POST for " + action));
+            } else {
+                Function<SudokuSession, String> command = command(exchange, action);
+                if (command == null) {
+                    send(exchange, 404, error("unknown action"));
+                } else {
+                    send(exchange, 200, session.submit(command).join());
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            send(exchange, 503, error(e.getMessage()));
+        } catch (CompletionException e) {
+            boolean badRequest = e.getCause() instanceof IllegalArgumentException;
+            send(exchange, badRequest ? 400 : 500, error(String.valueOf(e.getCause().getMessage())));
+        } catch (RuntimeException e) {
+            send(exchange, 500, error(String.valueOf(e.getMessage())));
+        } finally {
+            exchange.close();  // Never leaves the client waiting, even if sending the response failed
+        }
+    }
+
+    /**
+     * Builds the session command for an action. The command applies the action and returns the session as JSON.
+     *
+     * @return The command, or null for an unknown action.
+     */
+    private static Function<SudokuSession, String> command(HttpExchange exchange, String action) {
+        switch (action) {
+            case "move":
+                int move = SudokuMove.of(Integer.parseInt(queryParameter(exchange, "row", "-1")),
+                        Integer.parseInt(queryParameter(exchange, "col", "-1")),
+                        Integer.parseInt(queryParameter(exchange, "value", "-1")));
+                return session -> {
+                    String status = SudokuMove.statusName(SudokuMove.status(session.move(move)));
+                    String json = session.toJson();
+                    return "{\"status\":\"" + status + "\"," + json.substring(1);
+                };
+            case "undo":
+                return session -> {
+                    session.getJournal().undo(session.getBoard());
+                    return session.toJson();
+                };
+            case "redo":
+                return session -> {
+                    session.getJournal().redo(session.getBoard());
+                    return session.toJson();
+                };
+            case "hint":
+                return session -> {
+                    session.hint();
+                    return session.toJson();
+                };
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets a query parameter. Parameter values are plain words and numbers, so no decoding is done.
+     */
+    private static String queryParameter(HttpExchange exchange, String name, String defaultValue) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int equals = pair.indexOf('=');
+                if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                    return pair.substring(equals + 1);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    private static String error(String message) {
+        return "{\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Starts a server on the loopback interface.
+     *
+     * @param args Optional port, default 8080.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");  // Before the server is created, which reads it
+        }
+        SudokuSessionManager manager = new SudokuSessionManager();
+        SudokuHttpServer server = new SudokuHttpServer(manager, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        server.start();
+        System.out.println("Sudoku server listening on http://localhost:" + server.getPort() + SESSIONS_PATH);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            manager.close();
+        }));
+    }
+}
@@ -0,0 +1,175 @@
+package com.kth25.demo.server;
+
+
+import com.kth25.demo.metrics.SudokuMetrics;
+import com.kth25.demo.model.SudokuBoard;
+import com.kth25.demo.model.SudokuMove;
+import com.kth25.demo.model.SudokuMoveJournal;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * One headless game: a board, its move journal and a mailbox of commands.
+ * The session is a lightweight actor. Commands are queued from any thread and run one at a time,
+ * in order, by a drain task on the session executor; the board and journal are only touched by
+ * commands, so they need no locks. A session without pending commands holds no thread.
+ */
+public final class SudokuSession {
+    private final String id;
+    private final SudokuBoard board = new SudokuBoard();
+    private final SudokuMoveJournal journal = new SudokuMoveJournal();
+    private final Executor executor;
+    private final ConcurrentLinkedQueue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Runnable drainTask = this::drain;  // Created once, scheduled whenever the mailbox fills
+    private volatile long lastActive = System.nanoTime();
+
+    /**
+     * Constructs an empty session. The board is set up by the first command.
+     *
+     * @param id       The session ID.
+     * @param executor The executor drain tasks run on.
+     */
+    SudokuSession(String id, Executor executor) {
+        this.id = id;
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the session ID.
+     *
+     * @return The ID clients use to address this session.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Queues a command for the session. The command runs after every command queued before it,
+     * and may use getBoard and getJournal.
+     *
+     * @param command The command, given this session.
+     * @param <T>     The result type.
+     * @return A future completed with the command's result, or exceptionally with what it threw.
+     */
+    public <T> CompletableFuture<T> submit(Function<SudokuSession, T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        mailbox.add(() -> {
+            try {
+                result.complete(command.apply(this));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);  // Keeps the drain task alive for later commands
+            }
+        });
+        lastActive = System.nanoTime();
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(drainTask);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the board. Only to be used inside a command.
+     *
+     * @return The session's board.
+     */
+    public SudokuBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * Gets the move journal. Only to be used inside a command.
+     *
+     * @return The session's journal.
+     */
+    public SudokuMoveJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Gets the time of the last queued command.
+     *
+     * @return The System.nanoTime of the last submit.
+     */
+    long getLastActive() {
+        return lastActive;
+    }
+
+    /**
+     * Applies a packed move and records it in the journal. Only to be used inside a command.
+     * Allocates nothing unless the journal has to grow.
+     *
+     * @param move A move packed with SudokuMove.of.
+     * @return The packed result of SudokuBoard.applyMove.
+     */
+    public int move(int move) {
+        long start = SudokuMetrics.startTimer();
+        int result = board.applyMove(move);
+        if (SudokuMove.changed(result, move)) {
+            journal.record(SudokuMove.cell(move), SudokuMove.oldValue(result), SudokuMove.digit(move), false);
+        }
+        SudokuMetrics.MOVE_TIME.recordSince(start);
+        return result;
+    }
+
+    /**
+     * Fills a random empty cell with its correct value and records it. Only to be used inside a command.
+     *
+     * @return False if there is no empty cell.
+     */
+    public boolean hint() {
+        int[] cell = board.provideHint();
+        if (cell == null) {
+            return false;
+        }
+        journal.record(cell[0] * GRID_SIZE + cell[1], 0, board.getValue(cell[0], cell[1]), false);
+        return true;
+    }
+
+    /**
+     * Describes the session as a JSON object. Only to be used inside a command.
+     * Values and givens are 81-character strings in row-major order, with 0 for empty cells
+     * and 1 for givens.
+     *
+     * @return The JSON text.
+     */
+    public String toJson() {
+        StringBuilder values = new StringBuilder(SudokuBoard.CELL_COUNT);
+        StringBuilder givens = new StringBuilder(SudokuBoard.CELL_COUNT);
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                values.append((char) ('0' + board.getValue(row, col)));
+                givens.append(board.isEditable(row, col) ? '0' : '1');
+            }
+        }
+        return "{\"id\":\"" + id + "\""
+                + ",\"values\":\"" + values + "\""
+                + ",\"givens\":\"" + givens + "\""
+                + ",\"filled\":" + board.getFilledCount()
+                + ",\"wrong\":" + board.getWrongCount()
+                + ",\"conflicts\":" + board.hasConflicts()
+                + ",\"complete\":" + board.isComplete()
+                + ",\"canUndo\":" + journal.canUndo()
+                + ",\"canRedo\":" + journal.canRedo() + "}";
+    }
+
+    /**
+     * Runs queued commands until the mailbox is empty. Only one drain task runs at a time.
+     */
+    private void drain() {
+        do {
+            Runnable command;
+            while ((command = mailbox.poll()) != null) {
+                command.run();
+            }
+            draining.set(false);
+            // A command queued after the last poll may have seen draining still set; take it over
+        } while (!mailbox.isEmpty() && draining.compareAndSet(false, true));
+    }
+}
@@ -0,0 +1,129 @@
+package com.kth25.demo.server;
+
+
+import com.kth25.demo.model.SudokuPuzzlePool;
+import com.kth25.demo.model.SudokuUtilities;
+
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs many independent headless games, keyed by session ID.
+ * Every session is an actor whose commands run on virtual threads, so an idle session costs only
+ * its board and journal (well under a kilobyte) and thousands of sessions fit in one JVM.
+ * New games are taken from a SudokuPuzzlePool, so creating a session never waits for the generator.
+ */
+public class SudokuSessionManager implements AutoCloseable {
+    public static final int DEFAULT_MAX_SESSIONS = 100_000;
+
+    private final ConcurrentHashMap<String, SudokuSession> sessions = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final SecureRandom random = new SecureRandom();  // Session IDs must not be guessable
+    private final SudokuPuzzlePool puzzlePool;
+    private final int maxSessions;
+
+    /**
+     * Constructs a manager with its own puzzle pool and the default session limit.
+     */
+    public SudokuSessionManager() {
+        this(new SudokuPuzzlePool(SudokuPuzzlePool.DEFAULT_LOW_WATERMARK, 256), DEFAULT_MAX_SESSIONS);
+    }
+
+    /**
+     * Constructs a manager taking new games from a pool.
+     *
+     * @param puzzlePool  The pool of pre-generated puzzles, closed with the manager.
+     * @param maxSessions The maximum number of sessions kept at once.
+     * @throws IllegalArgumentException If maxSessions is not positive.
+     */
+    public SudokuSessionManager(SudokuPuzzlePool puzzlePool, int maxSessions) {
+        if (maxSessions <= 0) throw new IllegalArgumentException("maxSessions " + maxSessions);
+        this.puzzlePool = puzzlePool;
+        this.maxSessions = maxSessions;
+        puzzlePool.prefill();
+    }
+
+    /**
+     * Creates a session with a new game.
+     *
+     * @param level The difficulty level of the game.
+     * @return A future completed with the new session once its board is set up.
+     * @throws IllegalStateException If the session limit is reached.
+     */
+    public CompletableFuture<SudokuSession> create(SudokuUtilities.SudokuLevel level) {
+        if (sessions.size() >= maxSessions) throw new IllegalStateException("session limit " + maxSessions);
+        SudokuSession session;
+        do {
+            session = new SudokuSession(HexFormat.of().toHexDigits(random.nextLong()), executor);
+        } while (sessions.putIfAbsent(session.getId(), session) != null);
+        return session.submit(s -> {
+            s.getBoard().initializeBoard(puzzlePool.take(level));
+            return s;
+        });
+    }
+
+    /**
+     * Gets a session.
+     *
+     * @param id The session ID.
+     * @return The session, or null if there is no session with that ID.
+     */
+    public SudokuSession get(String id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Ends a session. Commands already queued still run.
+     *
+     * @param id The session ID.
+     * @return True if the session existed.
+     */
+    public boolean remove(String id) {
+        return sessions.remove(id) != null;
+    }
+
+    /**
+     * Ends every session that has not received a command for a while.
+     *
+     * @param idleTime The idle time after which a session ends.
+     * @param unit     The unit of idleTime.
+     * @return The number of sessions ended.
+     */
+    public int removeIdle(long idleTime, TimeUnit unit) {
+        long now = System.nanoTime();
+        long maxIdle = unit.toNanos(idleTime);
+        int removed = 0;
+        for (Iterator<SudokuSession> it = sessions.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().getLastActive() > maxIdle) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Gets the number of active sessions.
+     *
+     * @return The session count.
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Ends all sessions and stops the puzzle pool.
+     */
+    @Override
+    public void close() {
+        sessions.clear();
+        executor.shutdown();
+        puzzlePool.close();
+    }
+}
@@ -1,12 +1,18 @@
 module com.kth25.demo {
     requires javafx.controls;
     requires javafx.fxml;
+    requires jdk.httpserver;
+    requires java.management;
+    requires jdk.jfr;
 
     // JavaFX måste få access till din Main-klass
     exports com.kth25.demo to javafx.graphics;
 
     // Om du har controllers eller modeller:
     exports com.kth25.demo.model;
+    exports com.kth25.demo.model.solver;
+    exports com.kth25.demo.server;
+    exports com.kth25.demo.metrics;
     exports view;
 
     // Om FXML laddar controllers i dessa paket, måste de öppnas:
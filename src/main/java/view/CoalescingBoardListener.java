@@ -0,0 +1,94 @@
+package view;
+
+
+
+import com.kth25.demo.metrics.SudokuMetrics;
+import com.kth25.demo.model.SudokuBoardListener;
+import javafx.application.Platform;
+
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+
+
+/**
+ * Forwards board changes to a listener on the JavaFX application thread, at most once per pulse.
+ * Changed cells are collected in a bitset; the first change after a delivery schedules a single
+ * Platform.runLater, and every change made before it runs is merged into that delivery.
+ * A board change replaces any pending cell changes. Changes may be reported from any thread.
+ */
+final class CoalescingBoardListener implements SudokuBoardListener {
+    private static final int LOW_CELLS = Long.SIZE;  // Cells 0-63 go in dirtyLow, 64-80 in dirtyHigh
+
+    private final SudokuBoardListener target;
+    private final Runnable deliverTask = this::deliver;  // Created once, scheduled on every delivery
+    private long dirtyLow;       // Changed cells 0-63
+    private long dirtyHigh;      // Changed cells 64-80
+    private boolean boardDirty;  // A board change is pending
+    private boolean scheduled;   // A delivery is waiting on the FX thread
+
+    /**
+     * Constructs a listener forwarding coalesced changes to a target.
+     *
+     * @param target The listener called on the JavaFX application thread.
+     */
+    CoalescingBoardListener(SudokuBoardListener target) {
+        this.target = target;
+    }
+
+    @Override
+    public synchronized void cellChanged(int row, int col) {
+        int cell = row * GRID_SIZE + col;
+        if (cell < LOW_CELLS) {
+            dirtyLow |= 1L << cell;
+        } else {
+            dirtyHigh |= 1L << (cell - LOW_CELLS);
+        }
+        schedule();
+    }
+
+    @Override
+    public synchronized void boardChanged() {
+        boardDirty = true;
+        schedule();
+    }
+
+    private void schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            Platform.runLater(deliverTask);
+        }
+    }
+
+    /**
+     * Takes the pending changes and forwards them to the target. Runs on the JavaFX application thread.
+     */
+    private void deliver() {
+        long low;
+        long high;
+        boolean board;
+        synchronized (this) {
+            low = dirtyLow;
+            high = dirtyHigh;
+            board = boardDirty;
+            dirtyLow = 0;
+            dirtyHigh = 0;
+            boardDirty = false;
+            scheduled = false;
+        }
+        long start = SudokuMetrics.startTimer();
+        if (board) {
+            target.boardChanged();  // Covers every changed cell
+        } else {
+            deliverCells(low, 0);
+            deliverCells(high, LOW_CELLS);
+        }
+        SudokuMetrics.VIEW_REFRESH_TIME.recordSince(start);
+    }
+
+    private void deliverCells(long dirty, int firstCell) {
+        while (dirty != 0) {
+            int cell = firstCell + Long.numberOfTrailingZeros(dirty);
+            dirty &= dirty - 1;  // Clear the lowest set bit
+            target.cellChanged(cell / GRID_SIZE, cell % GRID_SIZE);
+        }
+    }
+}
@@ -2,30 +2,96 @@ package view;
 
 
 
+import com.kth25.demo.metrics.SudokuMetrics;
+import com.kth25.demo.metrics.SudokuUiActionEvent;
+import com.kth25.demo.model.SudokuAutosave;
 import com.kth25.demo.model.SudokuBoard;
+import com.kth25.demo.model.SudokuHintEngine;
 import com.kth25.demo.model.SudokuIO;
+import com.kth25.demo.model.SudokuMoveJournal;
+import com.kth25.demo.model.SudokuPuzzlePool;
 import com.kth25.demo.model.SudokuUtilities;
+import com.kth25.demo.model.solver.HumanSolver;
 import javafx.scene.control.Alert;
 
 import java.io.IOException;
 import java.util.Random;
 
+import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+
 /**
  * Controller class for managing the interactions between the Sudoku model and the view.
  * Handles game logic, including saving, loading, checking game progress, and providing hints.
+ * Every handler run on the JavaFX application thread is recorded as a SudokuUiActionEvent in flight recordings.
  */
 public class GameController {
     private SudokuBoard sudokuBoard;
     private GridView gridView;
     private SudokuUtilities.SudokuLevel currentLevel;
+    private final SudokuPuzzlePool puzzlePool;
+    private final SudokuMoveJournal journal = new SudokuMoveJournal();  // Moves of the current game, for undo and redo
+    private final SudokuAutosave autosave;  // Null if autosaving is off
+    private final SudokuHintEngine hintEngine;
 
     /**
-     * Constructor that takes in the Sudoku model (SudokuBoard).
+     * Constructor that takes in the Sudoku model (SudokuBoard) and creates its own puzzle pool.
      *
      * @param sudokuBoard The SudokuBoard model to be managed by the controller.
      */
     public GameController(SudokuBoard sudokuBoard) {
+        this(sudokuBoard, new SudokuPuzzlePool());
+    }
+
+    /**
+     * Constructor that takes in the Sudoku model (SudokuBoard) and the pool new games are taken from.
+     *
+     * @param sudokuBoard The SudokuBoard model to be managed by the controller.
+     * @param puzzlePool  The pool of pre-generated puzzles used for new games.
+     */
+    public GameController(SudokuBoard sudokuBoard, SudokuPuzzlePool puzzlePool) {
+        this(sudokuBoard, puzzlePool, openDefaultAutosave());
+    }
+
+    /**
+     * Constructor that takes in the Sudoku model (SudokuBoard), the pool new games are taken from
+     * and the autosave every move is written to.
+     *
+     * @param sudokuBoard The SudokuBoard model to be managed by the controller.
+     * @param puzzlePool  The pool of pre-generated puzzles used for new games.
+     * @param autosave    The autosave of the current game, or null to turn autosaving off.
+     */
+    public GameController(SudokuBoard sudokuBoard, SudokuPuzzlePool puzzlePool, SudokuAutosave autosave) {
         this.sudokuBoard = sudokuBoard;
+        this.puzzlePool = puzzlePool;
+        this.autosave = autosave;
+        this.hintEngine = new SudokuHintEngine(sudokuBoard);
+        puzzlePool.prefill();
+    }
+
+    private static SudokuAutosave openDefaultAutosave() {
+        try {
+            return SudokuAutosave.openDefault();
+        } catch (IOException e) {
+            System.err.println("Autosave is off: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Restores the autosaved game, if there is one. Otherwise the current board becomes the autosaved game.
+     * Called once at startup.
+     *
+     * @return True if a game was restored.
+     */
+    public boolean recoverAutosave() {
+        if (autosave == null) {
+            return false;
+        }
+        if (autosave.recover(sudokuBoard, journal)) {
+            return true;
+        }
+        autosave.snapshot(sudokuBoard, journal);
+        return false;
     }
 
     /**
@@ -43,12 +109,14 @@ public class GameController {
      * @param filePath The file path where the game state will be saved.
      */
     public void saveGame(String filePath) {
+        SudokuUiActionEvent event = beginAction();
         try {
-            SudokuIO.saveSudokuBoard(sudokuBoard, filePath);
+            SudokuIO.saveSudokuGame(sudokuBoard, journal, filePath);
             System.out.println("Game saved successfully.");
         } catch (IOException e) {
             System.err.println("Failed to save the game: " + e.getMessage());
         }
+        endAction(event, "save");
     }
 
     /**
@@ -57,13 +125,15 @@ public class GameController {
      * @param filePath The file path from which the game state will be loaded.
      */
     public void loadGame(String filePath) {
+        SudokuUiActionEvent event = beginAction();
         try {
-            sudokuBoard = SudokuIO.loadSudokuBoard(filePath);
+            sudokuBoard.copyFrom(SudokuIO.loadSudokuGame(filePath, journal));  // Keep the board shared with GridView
+            autosaveSnapshot();
             System.out.println("Game loaded successfully.");
-            gridView.updateView(sudokuBoard.getBoardMatrix());
-        } catch (IOException | ClassNotFoundException e) {
+        } catch (IOException e) {
             System.err.println("Failed to load the game: " + e.getMessage());
         }
+        endAction(event, "load");
     }
 
     /**
@@ -71,11 +141,14 @@ public class GameController {
      * If no level is set, defaults to the MEDIUM level.
      */
     public void onNewGame() {
+        SudokuUiActionEvent event = beginAction();
         if (currentLevel == null) {
             currentLevel = SudokuUtilities.SudokuLevel.MEDIUM;  // Default to MEDIUM if no level is selected
         }
-        sudokuBoard.initializeBoardWithLevel(currentLevel);
-        gridView.updateView(sudokuBoard.getBoardMatrix());
+        sudokuBoard.initializeBoard(puzzlePool.take(currentLevel));  // Never waits for the generator
+        journal.clear();
+        autosaveSnapshot();
+        endAction(event, "newGame");
     }
 
     /**
@@ -86,14 +159,43 @@ public class GameController {
      * @param number The number to be entered into the cell.
      */
     public void handleNumberInput(int row, int col, int number) {
-        if (sudokuBoard.getBoard()[row][col].isEditable()) {
-            sudokuBoard.setValue(row, col, number);
-            gridView.updateView(sudokuBoard.getBoardMatrix());
+        if (sudokuBoard.isEditable(row, col)) {
+            SudokuUiActionEvent event = beginAction();
+            long start = SudokuMetrics.startTimer();
+            int oldValue = sudokuBoard.getValue(row, col);
+            sudokuBoard.setValue(row, col, number);  // GridView repaints the changed tiles
+            if (oldValue != number) {
+                recordMove(row * GRID_SIZE + col, oldValue, number, false);
+            }
+            SudokuMetrics.MOVE_TIME.recordSince(start);
+            endAction(event, "move");
         } else {
             System.out.println("This cell is already filled or not editable.");
         }
     }
 
+    /**
+     * Toggles a pencil mark in a cell. Pencil marks are notes only and are not recorded as moves.
+     *
+     * @param row    The row index of the cell.
+     * @param col    The column index of the cell.
+     * @param number The digit to mark; 0 (no digit selected) does nothing.
+     */
+    public void togglePencilMark(int row, int col, int number) {
+        if (number != 0 && sudokuBoard.getValue(row, col) == 0) {
+            sudokuBoard.togglePencilMark(row, col, number);  // The board notifies the view
+        }
+    }
+
+    /**
+     * Shows or hides the automatic candidates in the empty cells.
+     *
+     * @param show True to show every empty cell's candidates instead of the player's pencil marks.
+     */
+    public void setShowCandidates(boolean show) {
+        gridView.setShowCandidates(show);
+    }
+
     /**
      * Checks if the current state of the board has all correct values so far.
      *
@@ -150,14 +252,48 @@ public class GameController {
      * Updates the board view to reflect the hint.
      */
     public void giveHint() {
-        int[] hintCell = sudokuBoard.provideHint();
+        SudokuUiActionEvent event = beginAction();
+        int[] hintCell = sudokuBoard.provideHint();  // GridView repaints the hinted tile
         if (hintCell != null) {
             int row = hintCell[0];
             int col = hintCell[1];
-            gridView.updateView(sudokuBoard.getBoardMatrix());
+            recordMove(row * GRID_SIZE + col, 0, sudokuBoard.getValue(row, col), false);
         } else {
             System.out.println("No empty cells left to provide a hint.");
         }
+        endAction(event, "hint");
+    }
+
+    /**
+     * Fills in the cell of the next logical step and tells the player which technique deduces it.
+     */
+    public void giveLogicalHint() {
+        SudokuUiActionEvent event = beginAction();
+        SudokuHintEngine.Hint hint = hintEngine.nextLogicalStep();
+        if (hint == null) {
+            System.out.println("The board is already solved.");
+            endAction(event, "logicalHint");
+            return;
+        }
+        int row = hint.getRow();
+        int col = hint.getCol();
+        int oldValue = sudokuBoard.getValue(row, col);
+        sudokuBoard.setValue(row, col, hint.getDigit());  // GridView repaints the hinted tile
+        recordMove(row * GRID_SIZE + col, oldValue, hint.getDigit(), false);
+
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Next Step");
+        alert.setHeaderText("Row " + (row + 1) + ", column " + (col + 1) + " is " + hint.getDigit());
+        if (hint.getTechnique() == HumanSolver.Technique.BACKTRACKING) {
+            alert.setContentText("No known technique applies here, so the digit was taken from the solution.");
+        } else {
+            alert.setContentText("Technique: " + hint.getTechnique().name().toLowerCase().replace('_', ' '));
+        }
+        alert.show();
+        endAction(event, "logicalHint");
+        if (sudokuBoard.isComplete()) {
+            showCompletionAlert();
+        }
     }
 
     /**
@@ -166,9 +302,76 @@ public class GameController {
      * @param level The difficulty level to start the new game with.
      */
     public void startNewGameWithLevel(SudokuUtilities.SudokuLevel level) {
+        SudokuUiActionEvent event = beginAction();
         this.currentLevel = level;
-        sudokuBoard.initializeBoardWithLevel(level);
-        gridView.updateView(sudokuBoard.getBoardMatrix());
+        sudokuBoard.initializeBoard(puzzlePool.take(level));  // Never waits for the generator
+        journal.clear();
+        autosaveSnapshot();
+        endAction(event, "newGame");
+    }
+
+    /**
+     * Undoes the last move, hint or clear.
+     */
+    public void undo() {
+        SudokuUiActionEvent event = beginAction();
+        if (!journal.undo(sudokuBoard)) {
+            System.out.println("Nothing to undo.");
+        } else if (autosave != null) {
+            autosave.recordUndo(sudokuBoard, journal);
+        }
+        endAction(event, "undo");
+    }
+
+    /**
+     * Redoes the last undone move, hint or clear.
+     */
+    public void redo() {
+        SudokuUiActionEvent event = beginAction();
+        if (!journal.redo(sudokuBoard)) {
+            System.out.println("Nothing to redo.");
+        } else if (autosave != null) {
+            autosave.recordRedo(sudokuBoard, journal);
+        }
+        endAction(event, "redo");
+    }
+
+    /**
+     * Stops the background generation of new puzzles and flushes the autosave. Called when the application exits.
+     */
+    public void shutdown() {
+        puzzlePool.close();
+        if (autosave != null) {
+            autosave.close();  // Writes the moves still queued
+        }
+    }
+
+    private void recordMove(int cell, int oldValue, int newValue, boolean linked) {
+        journal.record(cell, oldValue, newValue, linked);
+        if (autosave != null) {
+            autosave.recordMove(sudokuBoard, journal);
+        }
+    }
+
+    private void autosaveSnapshot() {
+        if (autosave != null) {
+            autosave.snapshot(sudokuBoard, journal);
+        }
+    }
+
+    private static SudokuUiActionEvent beginAction() {
+        SudokuUiActionEvent event = new SudokuUiActionEvent();
+        event.begin();
+        return event;
+    }
+
+    private void endAction(SudokuUiActionEvent event, String action) {
+        event.end();
+        if (event.shouldCommit()) {  // False unless a recording has the event enabled
+            event.action = action;
+            event.filled = sudokuBoard.getFilledCount();
+            event.commit();
+        }
     }
 
     /**
@@ -176,7 +379,21 @@ public class GameController {
      * Updates the view to reflect the cleared cells.
      */
     public void clearAllEditableCells() {
+        SudokuUiActionEvent event = beginAction();
+        int cleared = 0;
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                int value = sudokuBoard.getValue(row, col);
+                if (value != 0 && sudokuBoard.isEditable(row, col)) {
+                    journal.record(row * GRID_SIZE + col, value, 0, cleared > 0);  // All cleared cells are undone as one step
+                    cleared++;
+                }
+            }
+        }
         sudokuBoard.clearAllEditableCells();
-        gridView.updateView(sudokuBoard.getBoardMatrix());
+        if (autosave != null && cleared > 0) {
+            autosave.recordMoves(sudokuBoard, journal, cleared);  // Only once the board matches the journal
+        }
+        endAction(event, "clear");
     }
 }
\ No newline at end of file
@@ -2,29 +2,47 @@ package view;
 
 
 
+import com.kth25.demo.metrics.SudokuViewRefreshEvent;
 import com.kth25.demo.model.SudokuBoard;
-import com.kth25.demo.model.SudokuCell;
+import com.kth25.demo.model.SudokuBoardListener;
+import javafx.css.PseudoClass;
 import javafx.event.EventHandler;
 import javafx.geometry.Pos;
 import javafx.scene.layout.GridPane;
-import javafx.scene.text.FontWeight;
-import javafx.scene.text.Font;
 import javafx.scene.control.Label;
+import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 
+import java.util.Arrays;
+
 import static com.kth25.demo.model.SudokuUtilities.GRID_SIZE;
+import static com.kth25.demo.model.SudokuUtilities.SECTION_SIZE;
 
 
 /**
  * Represents the visual grid view for the Sudoku game, including handling user interactions
  * and updating the visual representation of the board.
+ * The view listens to its SudokuBoard and repaints only the tiles whose value or pencil marks
+ * changed. Changes are coalesced and delivered on the JavaFX application thread once per pulse.
+ * Tile looks are defined in sudoku.css and switched through pseudo-classes.
+ * Empty tiles show pencil marks: the player's own marks, or the board's candidates when automatic
+ * candidates are on. Right-click or shift-click toggles a pencil mark.
+ * Each repaint pass is recorded as a SudokuViewRefreshEvent in flight recordings.
  */
-public class GridView extends GridPane {
+public class GridView extends GridPane implements SudokuBoardListener {
+    private static final PseudoClass FILLED = PseudoClass.getPseudoClass("filled");
+    private static final PseudoClass PENCIL = PseudoClass.getPseudoClass("pencil");
+    private static final int MARKS_SHIFT = 4;  // Tile state bits 4-12: pencil marks shown, above the 4 value bits
+    private static final String[] PENCIL_TEXTS = new String[1 << GRID_SIZE];  // Tile text of each mark set, built on first use
+
     private Label[][] numberTiles; // UI grid tiles
+    private final int[] shownStates = new int[GRID_SIZE * GRID_SIZE];  // Value and pencil marks each tile shows
     private GridPane numberPane;
     private SudokuBoard board;
     private GameController controller;
     private Buttons buttons;
+    private boolean showCandidates;  // Show the board's candidates instead of the player's pencil marks
+    private int repaintedTiles;      // Tiles changed by the current repaint pass
 
     /**
      * Constructor to initialize the GridView with the given Sudoku board and controller.
@@ -42,6 +60,10 @@ public class GridView extends GridPane {
         // Initialize and render the grid view
         initNumberTiles();
         numberPane = makeNumberPane();
+        numberPane.getStylesheets().add(GridView.class.getResource("sudoku.css").toExternalForm());
+        Arrays.fill(shownStates, -1);  // Nothing painted yet
+        updateView();
+        board.addListener(new CoalescingBoardListener(this));  // Repaints at most once per pulse
     }
 
     /**
@@ -55,45 +77,131 @@ public class GridView extends GridPane {
 
     /**
      * Updates the view to reflect the current state of the Sudoku board.
-     *
-     * @param sudokuMatrix A 3-dimensional array representing the current values of the board.
+     * Only tiles that show a different value or pencil marks than the board are touched.
      */
-    public void updateView(int[][][] sudokuMatrix) {
+    public void updateView() {
+        SudokuViewRefreshEvent event = beginRefresh();
         for (int row = 0; row < GRID_SIZE; row++) {
             for (int col = 0; col < GRID_SIZE; col++) {
-                int value = sudokuMatrix[row][col][0]; // Initial value
-
-                if (value != 0) {
-                    numberTiles[row][col].setText(String.valueOf(value));
-                    numberTiles[row][col].setStyle("-fx-background-color: white; -fx-border-color: black; -fx-font-weight: bold;");
-                } else {
-                    numberTiles[row][col].setText(""); // Empty if 0
-                    numberTiles[row][col].setStyle("-fx-background-color: white; -fx-border-color: black; -fx-font-weight: normal;");
-                }
+                repaintTile(row, col);
+            }
+        }
+        endRefresh(event, true, GRID_SIZE * GRID_SIZE);
+    }
+
+    /**
+     * Switches between showing the board's candidates and the player's own pencil marks in empty tiles.
+     *
+     * @param showCandidates True to show the candidates of every empty cell.
+     */
+    public void setShowCandidates(boolean showCandidates) {
+        this.showCandidates = showCandidates;
+        updateView();
+    }
+
+    /**
+     * Repaints the changed tile and refreshes the candidates shown in the tiles sharing a unit with it.
+     *
+     * @param row The row index of the changed cell.
+     * @param col The column index of the changed cell.
+     */
+    @Override
+    public void cellChanged(int row, int col) {
+        int boxRow = row - row % SECTION_SIZE;
+        int boxCol = col - col % SECTION_SIZE;
+        SudokuViewRefreshEvent event = beginRefresh();
+        for (int i = 0; i < GRID_SIZE; i++) {
+            repaintTile(row, i);
+            repaintTile(i, col);
+            repaintTile(boxRow + i / SECTION_SIZE, boxCol + i % SECTION_SIZE);
+        }
+        endRefresh(event, false, 3 * GRID_SIZE);
+    }
+
+    /**
+     * Repaints every tile whose state differs from the board.
+     */
+    @Override
+    public void boardChanged() {
+        updateView();
+    }
+
+    /**
+     * Brings one tile in line with the board, touching it only if its value or pencil marks changed.
+     *
+     * @param row The row index of the tile.
+     * @param col The column index of the tile.
+     */
+    private void repaintTile(int row, int col) {
+        int value = board.getValue(row, col);
+        int marks = value != 0 ? 0 : showCandidates ? board.getCandidates(row, col) : board.getPencilMarks(row, col);
+        int state = value | marks << MARKS_SHIFT;
+        int index = row * GRID_SIZE + col;
+        if (state == shownStates[index]) {
+            return;
+        }
+        Label tile = numberTiles[row][col];
+        if (value != 0) {
+            tile.setText(String.valueOf(value));
+        } else {
+            tile.setText(marks == 0 ? "" : pencilText(marks));  // Empty if 0 and unmarked
+        }
+        tile.pseudoClassStateChanged(FILLED, value != 0);
+        tile.pseudoClassStateChanged(PENCIL, marks != 0);
+        shownStates[index] = state;
+        repaintedTiles++;
+    }
+
+    private SudokuViewRefreshEvent beginRefresh() {
+        repaintedTiles = 0;
+        SudokuViewRefreshEvent event = new SudokuViewRefreshEvent();
+        event.begin();
+        return event;
+    }
+
+    private void endRefresh(SudokuViewRefreshEvent event, boolean full, int tilesChecked) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.full = full;
+            event.tilesChecked = tilesChecked;
+            event.cellsRepainted = repaintedTiles;
+            event.commit();
+        }
+    }
+
+    /**
+     * Gets the tile text for a set of pencil marks: a 3x3 block of digits with blanks for unmarked ones.
+     *
+     * @param marks A 9-bit mask where bit d - 1 is set if d is marked.
+     * @return The text, shared between tiles with the same marks.
+     */
+    private static String pencilText(int marks) {
+        String text = PENCIL_TEXTS[marks];
+        if (text == null) {
+            StringBuilder builder = new StringBuilder(2 * GRID_SIZE);
+            for (int digit = 1; digit <= GRID_SIZE; digit++) {
+                builder.append((marks & (1 << (digit - 1))) != 0 ? (char) ('0' + digit) : ' ');
+                builder.append(digit == GRID_SIZE ? "" : digit % SECTION_SIZE == 0 ? "\n" : " ");
             }
+            text = builder.toString();
+            PENCIL_TEXTS[marks] = text;
         }
+        return text;
     }
 
     /**
      * Initializes the individual number tiles for the grid, setting default styles and attaching event handlers.
      */
     private void initNumberTiles() {
-        Font font = Font.font("Monospaced", FontWeight.NORMAL, 20);
-
         for (int row = 0; row < GRID_SIZE; row++) {
             for (int col = 0; col < GRID_SIZE; col++) {
-                int value = board.getValue(row, col);
-
-                // Prepare display value, empty string for zeroes
-                String displayValue = value == 0 ? "" : String.valueOf(value);
-
-                // Initialize label (tile)
-                Label tile = new Label(displayValue);
+                // Initialize label (tile), its text is set by the first updateView
+                Label tile = new Label();
                 tile.setPrefWidth(32);
                 tile.setPrefHeight(32);
-                tile.setFont(font);
                 tile.setAlignment(Pos.CENTER);
-                tile.setStyle("-fx-border-color: black; -fx-border-width: 0.5px;");
+                tile.getStyleClass().add("sudoku-tile");
+                tile.setUserData(row * GRID_SIZE + col);  // Cell index, read back by the click handler
                 tile.setOnMouseClicked(tileClickHandler); // Attach event handler
 
                 numberTiles[row][col] = tile; // Store in array
@@ -108,13 +216,13 @@ public class GridView extends GridPane {
      */
     private GridPane makeNumberPane() {
         GridPane root = new GridPane();
-        root.setStyle("-fx-border-color: black; -fx-border-width: 1.0px; -fx-background-color: white;");
+        root.getStyleClass().add("sudoku-grid");
 
         // Create 3x3 sections and add number tiles
         for (int srow = 0; srow < 3; srow++) {
             for (int scol = 0; scol < 3; scol++) {
                 GridPane section = new GridPane();
-                section.setStyle("-fx-border-color: black; -fx-border-width: 0.5px;");
+                section.getStyleClass().add("sudoku-section");
 
                 for (int row = 0; row < 3; row++) {
                     for (int col = 0; col < 3; col++) {
@@ -143,26 +251,19 @@ public class GridView extends GridPane {
     private EventHandler<MouseEvent> tileClickHandler = new EventHandler<MouseEvent>() {
         @Override
         public void handle(MouseEvent event) {
-            for (int row = 0; row < GRID_SIZE; row++) {
-                for (int col = 0; col < GRID_SIZE; col++) {
-                    if (event.getSource() == numberTiles[row][col]) {
-                        SudokuCell cell = board.getBoard()[row][col];
-
-                        if (cell.isEditable()) {
-                            // Get selected number from Buttons
-                            int selectedNumber = buttons.getSelectedNumber();
-
-                            // Update the model and controller
-                            controller.handleNumberInput(row, col, selectedNumber);
-
-                            // Update the view tile text
-                            numberTiles[row][col].setText(selectedNumber == 0 ? "" : String.valueOf(selectedNumber));
-
-                            return; // Exit after updating the clicked tile
-                        }
-                    }
-                }
+            // Each tile carries its cell index, so no search over the grid is needed
+            int index = (Integer) ((Label) event.getSource()).getUserData();
+            int row = index / GRID_SIZE;
+            int col = index % GRID_SIZE;
+            if (!board.isEditable(row, col)) {
+                return;
+            }
+            // Update the model through the controller, the board notifies the view
+            if (event.getButton() == MouseButton.SECONDARY || event.isShiftDown()) {
+                controller.togglePencilMark(row, col, buttons.getSelectedNumber());
+            } else {
+                controller.handleNumberInput(row, col, buttons.getSelectedNumber());
             }
         }
     };
-}
\ No newline at end of file
+}
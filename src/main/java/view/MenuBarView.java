@@ -3,9 +3,12 @@ package view;
 import com.kth25.demo.model.SudokuUtilities;
 
 import javafx.scene.control.Alert;
+import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.SeparatorMenuItem;
+import javafx.scene.input.KeyCombination;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import java.io.File;
@@ -31,19 +34,30 @@ public class MenuBarView extends MenuBar {
         MenuItem easy = new MenuItem("Difficulty: Easy");
         MenuItem medium = new MenuItem("Difficulty: Medium");
         MenuItem hard = new MenuItem("Difficulty: Hard");
-        gameMenu.getItems().addAll(newGame, easy, medium, hard);
+        MenuItem undo = new MenuItem("Undo");
+        MenuItem redo = new MenuItem("Redo");
+        undo.setAccelerator(KeyCombination.keyCombination("Shortcut+Z"));
+        redo.setAccelerator(KeyCombination.keyCombination("Shortcut+Y"));
+        CheckMenuItem candidates = new CheckMenuItem("Show candidates");
+        gameMenu.getItems().addAll(newGame, easy, medium, hard, new SeparatorMenuItem(), undo, redo,
+                new SeparatorMenuItem(), candidates);
 
         // Lägg till eventhanterare för svårighetsnivåer och nytt spel
         newGame.setOnAction(e -> controller.onNewGame());  // Starta ett nytt spel
         easy.setOnAction(e -> controller.startNewGameWithLevel(SudokuUtilities.SudokuLevel.EASY));
         medium.setOnAction(e -> controller.startNewGameWithLevel(SudokuUtilities.SudokuLevel.MEDIUM));
         hard.setOnAction(e -> controller.startNewGameWithLevel(SudokuUtilities.SudokuLevel.HARD));
+        undo.setOnAction(e -> controller.undo());  // Ångra senaste draget
+        redo.setOnAction(e -> controller.redo());  // Gör om det ångrade draget
+        candidates.setOnAction(e -> controller.setShowCandidates(candidates.isSelected()));  // Visa kandidater i tomma rutor
 
         // Help-meny
         Menu helpMenu = new Menu("Help");
         MenuItem aboutGame = new MenuItem("Game rules");
         MenuItem clear = new MenuItem("Clear");
-        helpMenu.getItems().addAll(aboutGame, clear);
+        MenuItem nextStep = new MenuItem("Next logical step");
+        helpMenu.getItems().addAll(aboutGame, clear, nextStep);
+        nextStep.setOnAction(e -> controller.giveLogicalHint());  // Visa nästa logiska steg och tekniken bakom det
 
         // Lägg till alla menyer (File, Game, Help) till menyraden
         this.getMenus().addAll(fileMenu, gameMenu, helpMenu);
@@ -0,0 +1,64 @@
+package com.kth25.demo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+
+import static com.kth25.demo.model.SudokuBoard.CELL_COUNT;
+import static com.kth25.demo.model.SudokuBoard.GRID_SIZE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that applyMove allocates nothing once warmed up, with a listener attached.
+ */
+class SudokuBoardAllocationTest {
+    private static final int WARM_UP_MOVES = 200_000;
+    private static final int MOVES = 100_000;
+
+    private int notifications;
+
+    @Test
+    void applyMoveAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().threadId();
+
+        SudokuBoard board = new SudokuBoard();
+        board.initializeBoard(SudokuUtilities.generatePredefinedSudokuMatrix(SudokuUtilities.SudokuLevel.HARD));
+        board.addListener(new SudokuBoardListener() {
+            @Override
+            public void cellChanged(int row, int col) {
+                notifications++;
+            }
+
+            @Override
+            public void boardChanged() {
+                notifications++;
+            }
+        });
+        int[] moves = new int[MOVES];  // Random moves, clears and moves on givens included
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < MOVES; i++) {
+            int cell = random.nextInt(CELL_COUNT);
+            moves[i] = SudokuMove.of(cell / GRID_SIZE, cell % GRID_SIZE, random.nextInt(GRID_SIZE + 1));
+        }
+
+        int results = play(board, moves, WARM_UP_MOVES);
+        long before = threads.getThreadAllocatedBytes(threadId);
+        results += play(board, moves, MOVES);
+        long after = threads.getThreadAllocatedBytes(threadId);
+        assertEquals(before, after, "bytes allocated by " + MOVES + " moves");
+        assertTrue(results != 0 && notifications > 0);  // Keeps the moves from being optimized away
+    }
+
+    private static int play(SudokuBoard board, int[] moves, int count) {
+        int results = 0;
+        for (int i = 0; i < count; i++) {
+            results += board.applyMove(moves[i % moves.length]);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,257 @@
+package com.kth25.demo.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.Adler32;
+
+import static com.kth25.demo.model.SudokuBoard.CELL_COUNT;
+import static com.kth25.demo.model.SudokuBoard.GRID_SIZE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the binary save format: round trips of boards and move journals, and rejection of corrupt records.
+ */
+class SudokuIOTest {
+    private static final int JOURNAL_MOVES = 12;
+
+    @TempDir
+    Path directory;
+
+    private SudokuBoard board;
+    private SudokuMoveJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        board = new SudokuBoard();
+        board.initializeBoard(SudokuUtilities.generatePredefinedSudokuMatrix(SudokuUtilities.SudokuLevel.MEDIUM));
+        journal = new SudokuMoveJournal();
+        int moves = 0;
+        for (int cell = 0; cell < CELL_COUNT && moves < JOURNAL_MOVES; cell++) {
+            int row = cell / GRID_SIZE;
+            int col = cell % GRID_SIZE;
+            if (board.isEditable(row, col)) {
+                int value = moves % 3 == 0 ? board.getCorrectValue(row, col) % GRID_SIZE + 1 : board.getCorrectValue(row, col);
+                board.setValue(row, col, value);  // Every third move is wrong, so wrong values are saved too
+                journal.record(cell, 0, value, moves % 4 == 1);
+                moves++;
+            }
+        }
+        journal.undo(board);  // Leaves a redoable tail, so the position differs from the size
+    }
+
+    @Test
+    void boardRoundTrip() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SudokuIO.SAVE_SIZE);
+        SudokuIO.encode(board, buffer);
+        assertEquals(SudokuIO.SAVE_SIZE, buffer.position());
+        buffer.flip();
+        SudokuBoard loaded = new SudokuBoard();
+        SudokuIO.decode(buffer, loaded);
+        assertEquals(SudokuIO.SAVE_SIZE, buffer.position());
+        assertSameBoard(board, loaded);
+    }
+
+    @Test
+    void journalRoundTrip() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SudokuIO.journalSize(journal));
+        SudokuIO.encode(journal, buffer);
+        assertEquals(buffer.capacity(), buffer.position());
+        buffer.flip();
+        SudokuMoveJournal loaded = new SudokuMoveJournal();
+        loaded.record(0, 0, 1, false);  // Replaced by the decoded moves
+        SudokuIO.decode(buffer, loaded);
+        assertEquals(buffer.capacity(), buffer.position());
+        assertSameJournal(journal, loaded);
+    }
+
+    @Test
+    void gameFileRoundTrip() throws IOException {
+        String file = directory.resolve("game.sav").toString();
+        SudokuIO.saveSudokuGame(board, journal, file);
+        assertEquals(SudokuIO.SAVE_SIZE + SudokuIO.journalSize(journal), Files.size(Path.of(file)));
+        SudokuMoveJournal loadedJournal = new SudokuMoveJournal();
+        SudokuBoard loaded = SudokuIO.loadSudokuGame(file, loadedJournal);
+        assertSameBoard(board, loaded);
+        assertSameJournal(journal, loadedJournal);
+
+        SudokuIO.saveSudokuBoard(board, file);  // Without a journal, loading clears it
+        assertSameBoard(board, SudokuIO.loadSudokuGame(file, loadedJournal));
+        assertEquals(0, loadedJournal.size());
+    }
+
+    @Test
+    void rejectsBadMagic() {
+        ByteBuffer buffer = encodedBoard();
+        buffer.putInt(0, 0x53444B43);
+        assertRejected(buffer);
+        ByteBuffer journalBuffer = encodedJournal();
+        journalBuffer.putInt(0, SudokuIO.MAGIC);  // A board record where a journal is expected
+        assertJournalRejected(journalBuffer);
+    }
+
+    @Test
+    void rejectsBadVersion() {
+        ByteBuffer buffer = encodedBoard();
+        buffer.putShort(Integer.BYTES, (short) (SudokuIO.VERSION + 1));
+        assertRejected(buffer);
+        ByteBuffer journalBuffer = encodedJournal();
+        journalBuffer.putShort(Integer.BYTES, (short) (SudokuIO.VERSION + 1));
+        assertJournalRejected(journalBuffer);
+    }
+
+    @Test
+    void rejectsTruncation() {
+        ByteBuffer buffer = encodedBoard();
+        for (int length = 0; length < SudokuIO.SAVE_SIZE; length++) {
+            assertRejected(buffer.duplicate().limit(length));
+        }
+        ByteBuffer journalBuffer = encodedJournal();
+        for (int length = 0; length < journalBuffer.limit(); length++) {
+            assertJournalRejected(journalBuffer.duplicate().limit(length));
+        }
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+        Path file = directory.resolve("game.sav");
+        SudokuIO.saveSudokuGame(board, journal, file.toString());
+        byte[] bytes = Files.readAllBytes(file);
+        for (int length : new int[] {0, SudokuIO.SAVE_SIZE - 1, SudokuIO.SAVE_SIZE + 1, bytes.length - 1}) {
+            Files.write(file, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> SudokuIO.loadSudokuGame(file.toString(), new SudokuMoveJournal()),
+                    "length " + length);
+        }
+    }
+
+    @Test
+    void rejectsEverySingleBitFlip() {
+        ByteBuffer buffer = encodedBoard();
+        for (int bit = 0; bit < SudokuIO.SAVE_SIZE * Byte.SIZE; bit++) {
+            ByteBuffer corrupt = flip(buffer, bit);
+            assertRejected(corrupt);
+        }
+        ByteBuffer journalBuffer = encodedJournal();
+        for (int bit = 0; bit < journalBuffer.limit() * Byte.SIZE; bit++) {
+            assertJournalRejected(flip(journalBuffer, bit));
+        }
+    }
+
+    @Test
+    void rejectsJournalThatDoesNotMatchBoard() throws IOException {
+        int firstGiven = 0;
+        while (board.isCellEditable(firstGiven)) {
+            firstGiven++;
+        }
+        int given = firstGiven;
+        int cell = journal.getCell(0);  // Applied, so the board holds its new value
+        int value = board.getCellValue(cell);
+        int undone = journal.getCell(journal.size() - 1);  // Undone, so the board holds its old value
+
+        assertGameRejected(moves -> moves.record(given, 0, board.getCellValue(given), false));  // Changes a given
+        assertGameRejected(moves -> moves.record(cell, 0, value % GRID_SIZE + 1, false));  // Board has another value
+        assertGameRejected(moves -> {
+            moves.record(undone, board.getCellValue(undone) % GRID_SIZE + 1, 1, false);  // Redo expects another value
+            moves.undo(new SudokuBoard());  // Only moves the position back
+        });
+
+        ByteBuffer buffer = ByteBuffer.allocate(SudokuIO.SAVE_SIZE + SudokuIO.journalSize(journal));
+        SudokuIO.encode(board, buffer);
+        SudokuIO.encode(journal, buffer);
+        int firstMove = SudokuIO.SAVE_SIZE + Integer.BYTES + Short.BYTES + 2 * Integer.BYTES;
+        buffer.putShort(firstMove, (short) (buffer.getShort(firstMove) | SudokuMoveJournal.CELL_MASK));  // Cell 127
+        Adler32 adler = new Adler32();
+        adler.update(buffer.array(), SudokuIO.SAVE_SIZE, buffer.capacity() - SudokuIO.SAVE_SIZE - Integer.BYTES);
+        buffer.putInt(buffer.capacity() - Integer.BYTES, (int) adler.getValue());
+        Path file = directory.resolve("cell.sav");
+        Files.write(file, buffer.array());
+        assertThrows(IOException.class, () -> SudokuIO.loadSudokuGame(file.toString(), new SudokuMoveJournal()));
+        assertThrows(IOException.class, () -> SudokuIO.decode(buffer.position(SudokuIO.SAVE_SIZE), new SudokuMoveJournal()));
+    }
+
+    private interface JournalEdit {
+        void apply(SudokuMoveJournal moves);
+    }
+
+    /**
+     * Saves the board with a copy of the journal changed by an edit, and asserts that loading it fails.
+     */
+    private void assertGameRejected(JournalEdit edit) throws IOException {
+        SudokuMoveJournal moves = new SudokuMoveJournal();
+        for (int i = 0; i < journal.getPosition(); i++) {
+            moves.record(journal.getCell(i), journal.getOldValue(i), journal.getNewValue(i), false);
+        }
+        edit.apply(moves);
+        Path file = directory.resolve("bad.sav");
+        SudokuIO.saveSudokuGame(board, moves, file.toString());
+        SudokuMoveJournal target = new SudokuMoveJournal();
+        target.record(0, 0, 1, false);
+        assertThrows(IOException.class, () -> SudokuIO.loadSudokuGame(file.toString(), target));
+        assertEquals(1, target.size());
+    }
+
+    private ByteBuffer encodedBoard() {
+        ByteBuffer buffer = ByteBuffer.allocate(SudokuIO.SAVE_SIZE);
+        SudokuIO.encode(board, buffer);
+        return buffer.flip();
+    }
+
+    private ByteBuffer encodedJournal() {
+        ByteBuffer buffer = ByteBuffer.allocate(SudokuIO.journalSize(journal));
+        SudokuIO.encode(journal, buffer);
+        return buffer.flip();
+    }
+
+    private static ByteBuffer flip(ByteBuffer buffer, int bit) {
+        ByteBuffer copy = ByteBuffer.allocate(buffer.limit());
+        copy.put(buffer.duplicate()).flip();
+        copy.put(bit / Byte.SIZE, (byte) (copy.get(bit / Byte.SIZE) ^ 1 << (bit % Byte.SIZE)));
+        return copy;
+    }
+
+    /**
+     * Asserts that decoding fails and leaves the target board unchanged.
+     */
+    private void assertRejected(ByteBuffer buffer) {
+        SudokuBoard target = new SudokuBoard();
+        target.copyFrom(board);
+        assertThrows(IOException.class, () -> SudokuIO.decode(buffer, target));
+        assertSameBoard(board, target);
+    }
+
+    /**
+     * Asserts that decoding fails and leaves the target journal unchanged.
+     */
+    private void assertJournalRejected(ByteBuffer buffer) {
+        SudokuMoveJournal target = new SudokuMoveJournal();
+        target.record(0, 0, 1, false);
+        assertThrows(IOException.class, () -> SudokuIO.decode(buffer, target));
+        assertEquals(1, target.size());
+        assertEquals(1, target.getNewValue(0));
+    }
+
+    private static void assertSameBoard(SudokuBoard expected, SudokuBoard actual) {
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            assertEquals(expected.getCellValue(cell), actual.getCellValue(cell), "value of cell " + cell);
+            assertEquals(expected.getCellCorrectValue(cell), actual.getCellCorrectValue(cell), "solution of cell " + cell);
+            assertEquals(expected.isCellEditable(cell), actual.isCellEditable(cell), "given flag of cell " + cell);
+        }
+        assertEquals(expected.getFilledCount(), actual.getFilledCount());
+        assertEquals(expected.checkBoard(), actual.checkBoard());
+    }
+
+    private static void assertSameJournal(SudokuMoveJournal expected, SudokuMoveJournal actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.getPosition(), actual.getPosition());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getMove(i), actual.getMove(i), "move " + i);
+        }
+    }
+}
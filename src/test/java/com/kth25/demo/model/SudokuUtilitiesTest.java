@@ -0,0 +1,46 @@
+package com.kth25.demo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that seeded batches are reproducible at any parallelism and that their puzzles are independent.
+ */
+class SudokuUtilitiesTest {
+    private static final long SEED = 20251017L;
+    private static final int COUNT = 40;
+
+    @Test
+    void batchIsTheSameAtAnyParallelism() {
+        int[][][][] serial = SudokuUtilities.generateBatch(SudokuUtilities.SudokuLevel.EASY, COUNT, 1, SEED);
+        int[][][][] parallel = SudokuUtilities.generateBatch(SudokuUtilities.SudokuLevel.EASY, COUNT, 4, SEED);
+        assertTrue(Arrays.deepEquals(serial, parallel));
+        for (int i = 0; i + 1 < COUNT; i++) {
+            assertFalse(Arrays.deepEquals(serial[i], serial[i + 1]), "puzzles " + i + " and " + (i + 1));
+        }
+    }
+
+    @Test
+    void neighbouringSeedsDoNotOverlap() {
+        long[][] streams = new long[COUNT][8];
+        for (int i = 0; i < COUNT; i++) {
+            SplittableRandom random = new SplittableRandom(SudokuUtilities.mix(SEED ^ i));
+            for (int k = 0; k < streams[i].length; k++) {
+                streams[i][k] = random.nextLong();
+            }
+        }
+        for (int i = 0; i + 1 < COUNT; i++) {
+            for (int k = 0; k < streams[i].length; k++) {
+                for (int j = 0; j < streams[i + 1].length; j++) {
+                    assertNotEquals(streams[i][k], streams[i + 1][j], "streams " + i + " and " + (i + 1));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.kth25.demo.server;
+
+import com.kth25.demo.model.SudokuPuzzlePool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the HTTP front end on a free loopback port and plays games through it.
+ */
+class SudokuHttpServerTest {
+    private SudokuSessionManager manager;
+    private SudokuHttpServer server;
+    private HttpClient client;
+    private String base;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        manager = new SudokuSessionManager(new SudokuPuzzlePool(1, 4), 1000);  // A small pool keeps the generator quiet
+        server = new SudokuHttpServer(manager, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        base = "http://localhost:" + server.getPort() + "/sessions";
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        manager.close();
+    }
+
+    @Test
+    void createMoveUndoHintDelete() throws Exception {
+        HttpResponse<String> created = send("POST", base + "?level=easy");
+        assertEquals(201, created.statusCode());
+        String id = SudokuLoadDriver.sessionId(created.body());
+        String values = field(created.body(), "values");
+        String givens = field(created.body(), "givens");
+        assertEquals(81, values.length());
+        assertEquals(values, field(send("GET", base + "/" + id).body(), "values"));
+
+        int cell = 0;
+        while (givens.charAt(cell) == '1' || values.charAt(cell) != '0') {
+            cell++;
+        }
+        String moved = send("POST", base + "/" + id + "/move?row=" + cell / 9 + "&col=" + cell % 9 + "&value=5").body();
+        assertTrue(field(moved, "status").matches("accepted|conflicting|wrong|completed"), moved);
+        assertEquals('5', field(moved, "values").charAt(cell));
+        assertEquals("true", field(moved, "canUndo"));
+
+        String undone = send("POST", base + "/" + id + "/undo").body();
+        assertEquals(values, field(undone, "values"));
+        assertEquals("true", field(undone, "canRedo"));
+
+        String hinted = send("POST", base + "/" + id + "/hint").body();
+        assertEquals(Integer.parseInt(field(undone, "filled")) + 1, Integer.parseInt(field(hinted, "filled")));
+        assertEquals("0", field(hinted, "wrong"));
+        assertNotEquals(values, field(hinted, "values"));
+
+        assertEquals(200, send("DELETE", base + "/" + id).statusCode());
+        assertEquals(404, send("GET", base + "/" + id).statusCode());
+        assertEquals(0, manager.size());
+    }
+
+    @Test
+    void rejectsBadRequests() throws Exception {
+        String id = SudokuLoadDriver.sessionId(send("POST", base).body());
+        assertEquals(400, send("POST", base + "/" + id + "/move?row=0&col=0&value=12").statusCode());
+        assertEquals(400, send("POST", base + "/" + id + "/move?row=9&col=0&value=1").statusCode());
+        assertEquals(404, send("POST", base + "/" + id + "/bogus").statusCode());
+        assertEquals(405, send("GET", base + "/" + id + "/undo").statusCode());
+        assertEquals(405, send("GET", base).statusCode());
+        assertEquals(404, send("GET", base + "/0123456789abcdef").statusCode());
+        assertEquals(400, send("POST", base + "?level=impossible").statusCode());
+        assertEquals(404, send("POST", base + "XYZ").statusCode());
+        assertEquals(404, send("GET", base + "XYZ/" + id).statusCode());
+    }
+
+    @Test
+    void loadDriverPlaysOverLocalhost() throws Exception {
+        SudokuLoadDriver.Result result = SudokuLoadDriver.run(URI.create(base), 50, 4, 2000);
+        assertEquals(2000, result.getMoves());
+        assertEquals(50, manager.size());
+        assertTrue(result.getPercentile(50) > 0 && result.getPercentile(50) <= result.getPercentile(99));
+    }
+
+    private HttpResponse<String> send(String method, String uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri)).method(method, HttpRequest.BodyPublishers.noBody()).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Gets a field of a flat JSON object, without the quotes of a string value.
+     */
+    private static String field(String json, String name) {
+        int start = json.indexOf("\"" + name + "\":");
+        assertTrue(start >= 0, name + " missing in " + json);
+        start += name.length() + 3;
+        if (json.charAt(start) == '"') {
+            return json.substring(start + 1, json.indexOf('"', start + 1));
+        }
+        int end = start;
+        while (end < json.length() && json.charAt(end) != ',' && json.charAt(end) != '}') {
+            end++;
+        }
+        return json.substring(start, end);
+    }
+}
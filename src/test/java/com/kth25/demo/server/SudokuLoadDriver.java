@@ -0,0 +1,213 @@
+package com.kth25.demo.server;
+
+
+import com.kth25.demo.model.SudokuUtilities;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load driver for the session server. It creates sessions over HTTP and then sends random moves
+ * from concurrent clients, each on its own virtual thread, and reports the move round-trip latency
+ * as seen by the clients. A tenth of the moves are sent first as a warm-up and not measured.
+ * Usage: {@code SudokuLoadDriver [sessions] [clients] [moves] [url]}, by default 10000 sessions,
+ * 16 clients and 200000 moves. Without a url an in-process server is started on a free loopback port,
+ * with TCP_NODELAY turned on as SudokuHttpServer.main does, and the heap taken by the sessions is reported as well.
+ * Run it from the test class path.
+ */
+public final class SudokuLoadDriver {
+    public static final int DEFAULT_SESSIONS = 10_000;
+    public static final int DEFAULT_CLIENTS = 16;
+    public static final int DEFAULT_MOVES = 200_000;
+
+    private SudokuLoadDriver() {
+    }
+
+    /**
+     * Move latencies of one run.
+     */
+    public static final class Result {
+        private final long[] latencies;  // Sorted, in nanoseconds
+
+        Result(long[] latencies) {
+            this.latencies = latencies;
+            Arrays.sort(latencies);
+        }
+
+        /**
+         * Gets the number of measured moves.
+         *
+         * @return The number of moves.
+         */
+        public int getMoves() {
+            return latencies.length;
+        }
+
+        /**
+         * Gets a latency percentile.
+         *
+         * @param percentile The percentile, from 0 to 100.
+         * @return The latency in nanoseconds that the given share of moves did not exceed.
+         * @throws IllegalArgumentException If the percentile is out of range or nothing was measured.
+         */
+        public long getPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) throw new IllegalArgumentException("percentile " + percentile);
+            if (latencies.length == 0) throw new IllegalArgumentException("no moves measured");
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, index)];
+        }
+
+        @Override
+        public String toString() {
+            return latencies.length + " moves, p50 " + getPercentile(50) / 1000 + " us, p99 " + getPercentile(99) / 1000
+                    + " us, p99.9 " + getPercentile(99.9) / 1000 + " us, max " + getPercentile(100) / 1000 + " us";
+        }
+    }
+
+    /**
+     * Creates sessions on a server and plays random moves on them.
+     * The sessions are left on the server; they end when it goes idle or is closed.
+     *
+     * @param base     The sessions URL of the server, such as http://localhost:8080/sessions.
+     * @param sessions The number of sessions to create.
+     * @param clients  The number of concurrent clients.
+     * @param moves    The number of measured moves, shared evenly between the clients.
+     * @return The measured latencies.
+     * @throws IOException If a request fails or the server answers with an error.
+     * @throws InterruptedException If interrupted while waiting for the clients.
+     * @throws IllegalArgumentException If a count is not positive.
+     */
+    public static Result run(URI base, int sessions, int clients, int moves) throws IOException, InterruptedException {
+        if (sessions <= 0) throw new IllegalArgumentException("sessions " + sessions);
+        if (clients <= 0) throw new IllegalArgumentException("clients " + clients);
+        if (moves <= 0) throw new IllegalArgumentException("moves " + moves);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(executor).build();
+            String[] ids = new String[sessions];
+            invokeClients(executor, clients, index -> {
+                for (int i = index; i < sessions; i += clients) {
+                    SudokuUtilities.SudokuLevel level = SudokuUtilities.SudokuLevel.values()[i % 3];
+                    ids[i] = sessionId(post(client, URI.create(base + "?level=" + level), 201));
+                }
+            });
+
+            int perClient = Math.max(1, moves / clients);
+            long[] latencies = new long[perClient * clients];
+            invokeClients(executor, clients, index ->
+                    play(client, base, ids, new SplittableRandom(-index - 1), null, 0, perClient / 10));  // Warm-up
+            invokeClients(executor, clients, index ->
+                    play(client, base, ids, new SplittableRandom(index), latencies, index * perClient, perClient));
+            return new Result(latencies);
+        }
+    }
+
+    /**
+     * Sends random moves, clears included, to random sessions, recording their latencies if an array is given.
+     */
+    private static void play(HttpClient client, URI base, String[] ids, SplittableRandom random,
+                             long[] latencies, int offset, int count) throws IOException, InterruptedException {
+        for (int i = 0; i < count; i++) {
+            URI uri = URI.create(base + "/" + ids[random.nextInt(ids.length)] + "/move?row=" + random.nextInt(9)
+                    + "&col=" + random.nextInt(9) + "&value=" + random.nextInt(10));
+            long start = System.nanoTime();
+            post(client, uri, 200);
+            if (latencies != null) {
+                latencies[offset + i] = System.nanoTime() - start;
+            }
+        }
+    }
+
+    private static String post(HttpClient client, URI uri, int expectedStatus) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != expectedStatus) {
+            throw new IOException(uri + " answered " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    /**
+     * Gets the session ID from a session's JSON, which starts with {"id":"...".
+     */
+    static String sessionId(String json) throws IOException {
+        int start = json.indexOf("\"id\":\"");
+        int end = start < 0 ? -1 : json.indexOf('"', start + 6);
+        if (end < 0) throw new IOException("no session ID in " + json);
+        return json.substring(start + 6, end);
+    }
+
+    private interface ClientTask {
+        void run(int index) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Runs one task per client concurrently and waits for all of them, rethrowing the first failure.
+     */
+    private static void invokeClients(ExecutorService executor, int clients, ClientTask task)
+            throws IOException, InterruptedException {
+        List<Future<Void>> futures = new ArrayList<>(clients);
+        for (int index = 0; index < clients; index++) {
+            int client = index;
+            futures.add(executor.submit(() -> {
+                task.run(client);
+                return null;
+            }));
+        }
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Command line entry point: runs the load against a server and prints the latencies.
+     *
+     * @param args Optional session, client and move counts and the sessions URL of a running server.
+     * @throws IOException If a request fails.
+     * @throws InterruptedException If interrupted while waiting for the clients.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SESSIONS;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CLIENTS;
+        int moves = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MOVES;
+        if (args.length > 3) {
+            System.out.println(run(URI.create(args[3]), sessions, clients, moves));
+            return;
+        }
+        if (System.getProperty(SudokuHttpServer.NODELAY_PROPERTY) == null) {
+            System.setProperty(SudokuHttpServer.NODELAY_PROPERTY, "true");
+        }
+        try (SudokuSessionManager manager = new SudokuSessionManager();
+             SudokuHttpServer server = new SudokuHttpServer(manager, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            server.start();
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            long before = runtime.totalMemory() - runtime.freeMemory();
+            Result result = run(URI.create("http://localhost:" + server.getPort() + "/sessions"), sessions, clients, moves);
+            System.gc();
+            long after = runtime.totalMemory() - runtime.freeMemory();
+            System.out.println(manager.size() + " sessions, about " + (after - before) / 1024 / 1024 + " MB of heap");
+            System.out.println(result);
+        }
+    }
+}